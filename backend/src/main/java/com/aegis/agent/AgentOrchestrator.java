@@ -1,23 +1,54 @@
 package com.aegis.agent;
 
+import com.aegis.agent.workflow.FlowDeadline;
+import com.aegis.agent.workflow.StepContext;
+import com.aegis.agent.workflow.StepListener;
+import com.aegis.agent.workflow.StepRetryPolicy;
+import com.aegis.agent.workflow.WorkflowEngine;
+import com.aegis.agent.workflow.WorkflowPlan;
 import com.aegis.dto.TriageRequest;
 import com.aegis.dto.TriageResponse;
+import com.aegis.dto.trace.ActionProposal;
+import com.aegis.dto.trace.ActionType;
+import com.aegis.dto.trace.AgentData;
+import com.aegis.dto.trace.Decision;
+import com.aegis.dto.trace.RiskAssessment;
+import com.aegis.dto.trace.RiskLevel;
+import com.aegis.dto.trace.StepPayload;
+import com.aegis.dto.trace.StepResult;
+import com.aegis.metrics.CircuitBreaker;
+import com.aegis.metrics.CircuitBreakerRegistry;
+import com.aegis.metrics.InstrumentedExecutorService;
 import com.aegis.metrics.MetricsService;
+import com.aegis.metrics.StepLatencyTracker;
+import com.aegis.risk.scoring.PreScoreCache;
+import com.aegis.service.AgentTraceWriter;
 import com.aegis.service.PiiRedactionService;
+import com.aegis.service.TraceStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Service
 public class AgentOrchestrator {
     
     private static final Logger logger = LoggerFactory.getLogger(AgentOrchestrator.class);
     
+    // Read-only steps that are safe to retry and hedge
+    private static final Set<String> IDEMPOTENT_STEPS = Set.of(
+        "getProfile", "getRecentTransactions", "riskSignals", "kbLookup", "kb_search");
+    
     @Autowired
     private ProfileAgent profileAgent;
     
@@ -39,26 +70,90 @@ public class AgentOrchestrator {
     @Autowired
     private MerchantDisambiguationAgent merchantDisambiguationAgent;
     
-    // Remove unused fields and methods
-    private final Map<String, Map<String, Object>> kbCache = new ConcurrentHashMap<>();
+    @Autowired
+    @Qualifier("agentStepExecutor")
+    private InstrumentedExecutorService stepExecutor;
+    
+    @Autowired
+    private StepRetryPolicy retryPolicy;
+    
+    @Autowired
+    private StepLatencyTracker latencyTracker;
+    
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakers;
+    
+    @Value("${aegis.agents.timeout.tool-call:1000}")
+    private long toolCallTimeoutMs;
+    
+    @Autowired
+    private TraceStore traceStore;
+    
+    @Autowired
+    private AgentTraceWriter traceWriter;
+    
+    @Autowired
+    private PreScoreCache preScoreCache;
+    
+    @Value("${aegis.agents.timeout.flow-budget:5000}")
+    private long flowBudgetMs;
+    
+    @Value("${aegis.agents.early-decision.enabled:true}")
+    private boolean earlyDecisionEnabled;
+    
+    private final WorkflowEngine workflowEngine = new WorkflowEngine((step, context) -> 
+        executeStepAsync(step.stepName(), context.deadline(), () -> step.function().execute(context)));
     
     /**
      * Orchestrates the multi-agent triage workflow
      */
-    @SuppressWarnings("unchecked")
     public TriageResponse executeTriage(TriageRequest request) {
-        String requestId = UUID.randomUUID().toString();
+        return executeTriage(request, UUID.randomUUID().toString());
+    }
+    
+    /**
+     * Orchestrates the triage workflow under a caller-assigned request ID, which is also
+     * the key of the stored trace
+     */
+    public TriageResponse executeTriage(TriageRequest request, String requestId) {
+        return executeTriageAsync(request, requestId, unsharedLookups(request), StepListener.NONE).join();
+    }
+    
+    /**
+     * Orchestrates the triage workflow using profile and transaction lookups that may be
+     * shared with other workflows for the same customer
+     */
+    public TriageResponse executeTriage(TriageRequest request, CustomerLookups lookups) {
+        return executeTriageAsync(request, UUID.randomUUID().toString(), lookups, StepListener.NONE).join();
+    }
+    
+    /**
+     * Starts the triage workflow without blocking the caller. The listener is told about
+     * each step as it starts and completes. The returned future never completes exceptionally;
+     * failures produce a manual-review response.
+     */
+    public CompletableFuture<TriageResponse> executeTriageAsync(TriageRequest request, String requestId, 
+                                                                StepListener listener) {
+        return executeTriageAsync(request, requestId, unsharedLookups(request), listener);
+    }
+    
+    /**
+     * With early decision enabled, the response is produced as soon as the outcome step and
+     * its dependencies are done. Enrichment steps (e.g. KB lookups the decision does not read)
+     * keep running and the full trace is written to the trace store when they finish.
+     */
+    private CompletableFuture<TriageResponse> executeTriageAsync(TriageRequest request, String requestId, 
+                                                                 CustomerLookups lookups, StepListener listener) {
         String maskedCustomerId = piiRedactionService.maskCustomerId(request.getCustomerId());
         
         logger.info("Starting triage workflow for requestId={}, customerId={}", 
                    requestId, maskedCustomerId);
         
         TriageResponse response = new TriageResponse(requestId, request.getCustomerId(), request.getSuspectTxnId());
-        Map<String, Object> traceData = new LinkedHashMap<>();
         List<String> traceSteps = new ArrayList<>();
-        List<String> reasons = new ArrayList<>();
         
         long startTime = System.currentTimeMillis();
+        FlowDeadline deadline = FlowDeadline.after(flowBudgetMs);
         
         try {
             // Check for PII in user message
@@ -73,333 +168,440 @@ public class AgentOrchestrator {
                     traceSteps.add("redaction_applied");
                 }
             }
-
-            String alertType = request.getAlertType();
-            boolean isMerchantDisambiguation = "merchant_disambiguation".equals(alertType) ||
-                                             (request.getUserMessage() != null && 
-                                              request.getUserMessage().toLowerCase().contains("don't recognize") &&
-                                              request.getUserMessage().toLowerCase().contains("charge") &&
-                                              !"unauthorized_charge".equals(alertType));
             
-            logger.info("Workflow selection: alertType={}, userMessage={}, isMerchantDisambiguation={}", 
-                       alertType, request.getUserMessage(), isMerchantDisambiguation);
+            WorkflowPlan plan = selectPlan(request, lookups);
+            logger.info("Executing {} workflow", plan.getName());
             
-            if ("card_lost".equals(alertType)) {
-                logger.info("Executing card lost workflow");
-                executeCardLostWorkflow(request, traceData);
-            } else if ("duplicate_charge".equals(alertType)) {
-                logger.info("Executing duplicate charge workflow");
-                executeDuplicateChargeWorkflow(request, traceData);
-            } else if ("unauthorized_charge".equals(alertType)) {
-                logger.info("Executing unauthorized charge workflow");
-                executeUnauthorizedChargeWorkflow(request, traceData);
-            } else if ("geo_velocity".equals(alertType)) {
-                logger.info("Executing geo-velocity workflow");
-                executeGeoVelocityWorkflow(request, traceData);
-            } else if ("chargeback_history".equals(alertType)) {
-                logger.info("Executing chargeback escalation workflow");
-                executeChargebackEscalationWorkflow(request, traceData);
-            } else if ("kb_faq".equals(alertType)) {
-                logger.info("Executing KB FAQ workflow");
-                executeKbFaqWorkflow(request, traceData);
-            } else if (isMerchantDisambiguation) {
-                logger.info("Executing merchant disambiguation workflow");
-                executeMerchantDisambiguationWorkflow(request, traceData);
-            } else {
-                logger.info("Executing standard triage workflow");
-                executeStandardTriageWorkflow(request, traceData);
-            }
-            
-            if (traceData.containsKey("step_6_action_execution")) {
-                Map<String, Object> actionStep = (Map<String, Object>) traceData.get("step_6_action_execution");
-                Map<String, Object> actionResult = (Map<String, Object>) actionStep.get("data");
-                Map<String, Object> decisionStep = (Map<String, Object>) traceData.get("step_5_decide");
-                Map<String, Object> decisionResult = (Map<String, Object>) decisionStep.get("data");
-                
-                response.setRiskScore((String) decisionResult.get("riskScore"));
-                response.setRecommendedAction((String) actionResult.get("action"));
-                response.setReasons((List<String>) decisionResult.get("reasons"));
-                response.setRequiresOTP((Boolean) actionResult.getOrDefault("requiresOTP", false));
-                response.setFallbackUsed((Boolean) decisionResult.getOrDefault("fallbackUsed", false));
-            } else if (traceData.containsKey("step_4_action_card_creation")) {
-                Map<String, Object> actionStep = (Map<String, Object>) traceData.get("step_4_action_card_creation");
-                Map<String, Object> actionResult = (Map<String, Object>) actionStep.get("data");
-                
-                response.setRiskScore("low");
-                response.setRecommendedAction((String) actionResult.get("action"));
-                response.setReasons(Arrays.asList("kb_faq", "guidance_provided"));
-                response.setRequiresOTP((Boolean) actionResult.getOrDefault("requiresOTP", false));
-                response.setFallbackUsed(false);
-            } else {
-                Map<String, Object> decisionStep = (Map<String, Object>) traceData.get("step_5_decide");
-                Map<String, Object> actionStep = (Map<String, Object>) traceData.get("step_6_proposeAction");
-                
-                Map<String, Object> decisionResult = (Map<String, Object>) decisionStep.get("data");
-                Map<String, Object> actionResult = (Map<String, Object>) actionStep.get("data");
-                
-                response.setRiskScore((String) decisionResult.get("riskScore"));
-                response.setRecommendedAction((String) actionResult.get("action"));
-                response.setReasons((List<String>) decisionResult.get("reasons"));
-                response.setRequiresOTP((Boolean) actionResult.getOrDefault("requiresOTP", false));
-                response.setFallbackUsed((Boolean) decisionResult.getOrDefault("fallbackUsed", false));
-            }
-            response.setTraceData(traceData);
-            response.setTraceSteps(traceSteps);
-            response.setCompletedAt(OffsetDateTime.now());
+            WorkflowEngine.WorkflowRun run = workflowEngine.start(plan, deadline, listener);
+            run.completion().thenAccept(traceData -> {
+                traceStore.put(requestId, traceData, true);
+                traceWriter.submit(requestId, request.getCustomerId(), plan.getName(), traceData);
+            });
             
-            long duration = System.currentTimeMillis() - startTime;
-            logger.info("Triage workflow completed for requestId={}, duration={}ms, riskScore={}", 
-                       requestId, duration, response.getRiskScore());
+            return (earlyDecisionEnabled ? run.outcome() : run.completion())
+                .thenApply(traceData -> {
+                    boolean traceComplete = !traceData.containsValue(StepResult.pending());
+                    if (!traceComplete) {
+                        traceStore.put(requestId, traceData, false);
+                    }
+                    completeResponse(response, plan, traceData, traceSteps);
+                    response.setTraceComplete(traceComplete);
+                    
+                    long duration = System.currentTimeMillis() - startTime;
+                    logger.info("Triage workflow completed for requestId={}, duration={}ms, budgetRemaining={}ms, riskScore={}, traceComplete={}", 
+                               requestId, duration, deadline.remainingMillis(), response.getRiskScore(), traceComplete);
+                    return response;
+                })
+                .exceptionally(e -> failResponse(response, unwrap(e)));
             
         } catch (Exception e) {
-            logger.error("Error in triage workflow for requestId={}", requestId, e);
-            response.setRiskScore("medium");
-            response.setRecommendedAction("contact_customer");
-            response.setReasons(Arrays.asList("system_error", "manual_review_required"));
-            response.setFallbackUsed(true);
-            response.setCompletedAt(OffsetDateTime.now());
+            // No workflow was started, so nothing else will tell the listener the run is over
+            listener.onWorkflowCompleted(Collections.emptyMap());
+            return CompletableFuture.completedFuture(failResponse(response, e));
+        }
+    }
+    
+    private WorkflowPlan selectPlan(TriageRequest request, CustomerLookups lookups) {
+        String alertType = request.getAlertType();
+        boolean isMerchantDisambiguation = "merchant_disambiguation".equals(alertType) ||
+                                         (request.getUserMessage() != null && 
+                                          request.getUserMessage().toLowerCase().contains("don't recognize") &&
+                                          request.getUserMessage().toLowerCase().contains("charge") &&
+                                          !"unauthorized_charge".equals(alertType));
+        
+        logger.info("Workflow selection: alertType={}, userMessage={}, isMerchantDisambiguation={}", 
+                   alertType, request.getUserMessage(), isMerchantDisambiguation);
+        
+        if ("card_lost".equals(alertType)) {
+            return cardLostPlan(request, lookups);
+        } else if ("duplicate_charge".equals(alertType)) {
+            return duplicateChargePlan(request, lookups);
+        } else if ("unauthorized_charge".equals(alertType)) {
+            return unauthorizedChargePlan(request, lookups);
+        } else if ("geo_velocity".equals(alertType)) {
+            return geoVelocityPlan(request, lookups);
+        } else if ("chargeback_history".equals(alertType)) {
+            return chargebackEscalationPlan(request, lookups);
+        } else if ("kb_faq".equals(alertType)) {
+            return kbFaqPlan(request, lookups);
+        } else if (isMerchantDisambiguation) {
+            return merchantDisambiguationPlan(request, lookups);
         }
         
+        Optional<RiskAssessment> preScore = preScoreCache.decisive(request.getSuspectTxnId());
+        if (preScore.isPresent()) {
+            return preScoredPlan(request, preScore.get());
+        }
+        return standardTriagePlan(request, lookups);
+    }
+    
+    /**
+     * Fills the response from the finished trace. The last decision and action in
+     * declaration order drive the outcome.
+     */
+    private void completeResponse(TriageResponse response, WorkflowPlan plan, 
+                                  Map<String, StepResult> traceData, List<String> traceSteps) {
+        Decision decision = null;
+        ActionProposal action = null;
+        for (StepResult stepResult : traceData.values()) {
+            if (stepResult.data() instanceof Decision stepDecision) {
+                decision = stepDecision;
+            } else if (stepResult.data() instanceof ActionProposal stepAction) {
+                action = stepAction;
+            }
+        }
+        if (action == null) {
+            throw new IllegalStateException("Workflow " + plan.getName() + " produced no action");
+        }
+        if (decision == null) {
+            // Guidance-only workflows (KB FAQ, merchant disambiguation) have no decide step
+            decision = Decision.of(RiskLevel.LOW, List.of(plan.getName(), "guidance_provided"));
+        }
+        
+        response.setRiskScore(decision.riskScore());
+        response.setRecommendedAction(action.action());
+        response.setReasons(decision.reasons());
+        response.setRequiresOTP(action.requiresOTP());
+        response.setFallbackUsed(decision.fallbackUsed());
+        response.setTraceData(traceData);
+        response.setTraceSteps(traceSteps);
+        response.setCompletedAt(OffsetDateTime.now());
+    }
+    
+    private TriageResponse failResponse(TriageResponse response, Throwable e) {
+        logger.error("Error in triage workflow for requestId={}", response.getRequestId(), e);
+        response.setRiskScore(RiskLevel.MEDIUM);
+        response.setRecommendedAction(ActionType.CONTACT_CUSTOMER);
+        response.setReasons(Arrays.asList("system_error", "manual_review_required"));
+        response.setFallbackUsed(true);
+        response.setCompletedAt(OffsetDateTime.now());
         return response;
     }
     
+    private CustomerLookups unsharedLookups(TriageRequest request) {
+        return new CustomerLookups(request.getCustomerId(), profileAgent, transactionAgent, false);
+    }
+    
+    /**
+     * Creates lookups that fetch each profile and transaction window once, for reuse
+     * across a batch of workflows for the same customer
+     */
+    public CustomerLookups sharedLookups(String customerId) {
+        return new CustomerLookups(customerId, profileAgent, transactionAgent, true);
+    }
+    
     /**
-     * Executes a single workflow step with timeout and error handling
+     * Executes a single workflow step with timeout and error handling.
+     * Calls are gated by the step's circuit breaker. Each attempt's timeout is min(remaining flow budget, tool-call timeout); an attempt
+     * that overruns it is interrupted so abandoned work stops holding threads and connections.
+     * Idempotent read steps are hedged and retried with backoff while the budget allows.
+     * A step skipped because the budget is already spent never reaches the tool, so it takes
+     * no breaker permit and is not recorded as a failure.
+     * The returned future always completes normally; failures become a fallback result.
      */
-    private Map<String, Object> executeStep(String stepName, AgentStep step) {
+    private CompletableFuture<StepResult> executeStepAsync(String stepName, FlowDeadline deadline, AgentStep step) {
         long startTime = System.currentTimeMillis();
-        Map<String, Object> result = new HashMap<>();
         
-        try {
-            if (metricsService.isCircuitBreakerOpen(stepName)) {
-                throw new RuntimeException("Circuit breaker open for " + stepName);
+        long timeoutMs = deadline.stepTimeoutMillis(toolCallTimeoutMs);
+        if (timeoutMs <= 0) {
+            return CompletableFuture.completedFuture(
+                stepFailed(stepName, startTime, new TimeoutException("Flow budget exhausted before " + stepName)));
+        }
+        
+        CircuitBreaker breaker = circuitBreakers.forStep(stepName);
+        if (!breaker.tryAcquirePermission()) {
+            metricsService.recordCircuitBreakerRejection(stepName);
+            return CompletableFuture.completedFuture(
+                stepFailed(stepName, startTime, new RuntimeException("Circuit breaker open for " + stepName)));
+        }
+        
+        return attemptWithRetry(stepName, deadline, timeoutMs, step, IDEMPOTENT_STEPS.contains(stepName), 1)
+            .handle((stepResult, error) -> {
+                long duration = System.currentTimeMillis() - startTime;
+                if (error == null) {
+                    breaker.onSuccess(duration);
+                    return stepSucceeded(stepName, startTime, stepResult);
+                }
+                breaker.onError(duration);
+                return stepFailed(stepName, startTime, unwrap(error));
+            });
+    }
+    
+    /**
+     * Runs an attempt and, for idempotent steps, schedules a jittered backoff retry on failure.
+     * If the budget runs out during the backoff, the step fails with the last real error.
+     */
+    private CompletableFuture<StepPayload> attemptWithRetry(String stepName, FlowDeadline deadline, long timeoutMs,
+                                                            AgentStep step, boolean idempotent, int attempt) {
+        if (!idempotent) {
+            return runAttempt(stepName, timeoutMs, step);
+        }
+        
+        return runHedged(stepName, timeoutMs, step)
+            .handle((stepResult, error) -> {
+                if (error == null) {
+                    return CompletableFuture.completedFuture(stepResult);
+                }
+                Throwable cause = unwrap(error);
+                long backoffMs = retryPolicy.backoffMillis(attempt);
+                long expectedLatencyMs = latencyTracker.percentile(stepName, 0.95);
+                // A saturated executor will not recover within a backoff window
+                if (cause instanceof RejectedExecutionException
+                        || !retryPolicy.shouldRetry(attempt, deadline, backoffMs, expectedLatencyMs)) {
+                    return CompletableFuture.<StepPayload>failedFuture(cause);
+                }
+                
+                logger.debug("Retrying step {} after {}ms (attempt {} failed: {})", 
+                            stepName, backoffMs, attempt, cause.getMessage());
+                metricsService.recordStepRetry(stepName);
+                return CompletableFuture
+                    .runAsync(() -> {}, CompletableFuture.delayedExecutor(backoffMs, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> {
+                        long retryTimeoutMs = deadline.stepTimeoutMillis(toolCallTimeoutMs);
+                        if (retryTimeoutMs <= 0) {
+                            return CompletableFuture.<StepPayload>failedFuture(cause);
+                        }
+                        return attemptWithRetry(stepName, deadline, retryTimeoutMs, step, true, attempt + 1);
+                    });
+            })
+            .thenCompose(Function.identity());
+    }
+    
+    /**
+     * Runs an attempt and, if it is still outstanding after the step's recent p95,
+     * starts a second one. The first successful response wins and the other is cancelled.
+     */
+    private CompletableFuture<StepPayload> runHedged(String stepName, long timeoutMs, AgentStep step) {
+        long hedgeDelayMs = retryPolicy.hedgeDelayMillis(latencyTracker, stepName);
+        if (hedgeDelayMs < 0 || hedgeDelayMs >= timeoutMs) {
+            return runAttempt(stepName, timeoutMs, step);
+        }
+        
+        CompletableFuture<StepPayload> winner = new CompletableFuture<>();
+        List<CompletableFuture<StepPayload>> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        BiConsumer<StepPayload, Throwable> onAttemptDone = (stepResult, error) -> {
+            if (error == null) {
+                winner.complete(stepResult);
+            } else if (pending.decrementAndGet() == 0) {
+                winner.completeExceptionally(error);
             }
-            
-            CompletableFuture<Map<String, Object>> future = CompletableFuture.supplyAsync(() -> {
+        };
+        
+        CompletableFuture<StepPayload> primary = runAttempt(stepName, timeoutMs, step);
+        attempts.add(primary);
+        primary.whenComplete(onAttemptDone);
+        
+        CompletableFuture.delayedExecutor(hedgeDelayMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (winner.isDone()) {
+                return;
+            }
+            pending.incrementAndGet();
+            metricsService.recordStepHedge(stepName);
+            // The hedge shares the primary's time slot rather than extending the step
+            CompletableFuture<StepPayload> hedge = runAttempt(stepName, timeoutMs - hedgeDelayMs, step);
+            attempts.add(hedge);
+            hedge.whenComplete(onAttemptDone);
+            if (winner.isDone()) {
+                hedge.cancel(true);
+            }
+        });
+        
+        winner.whenComplete((stepResult, error) -> attempts.forEach(attempt -> attempt.cancel(true)));
+        return winner;
+    }
+    
+    /**
+     * Submits one attempt to the step executor. The attempt is interrupted if it
+     * times out or is cancelled.
+     */
+    private CompletableFuture<StepPayload> runAttempt(String stepName, long timeoutMs, AgentStep step) {
+        CompletableFuture<StepPayload> future = new CompletableFuture<>();
+        long attemptStart = System.currentTimeMillis();
+        Future<?> task;
+        try {
+            task = stepExecutor.submit(() -> {
                 try {
-                    return step.execute();
-                } catch (Exception e) {
-                    throw new CompletionException(e);
+                    future.complete(step.execute());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
                 }
             });
-            
-            Map<String, Object> stepResult = future.get(1000, TimeUnit.MILLISECONDS);
-            long duration = System.currentTimeMillis() - startTime;
-            
-            result.put("status", "ok");
-            result.put("duration", duration);
-            result.put("data", stepResult);
-            
-            metricsService.recordToolCall(stepName, true);
-            metricsService.recordAgentLatency(duration);
-            metricsService.recordCircuitBreakerSuccess(stepName);
-            
-        } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            logger.warn("Step {} timed out or failed after {}ms: {}", stepName, duration, e.getMessage());
-            
-            result.put("status", "error");
-            result.put("duration", duration);
-            result.put("error", e.getMessage());
-            result.put("data", createFallbackResult(stepName, e.getMessage()));
-            
-            metricsService.recordToolCall(stepName, false);
-            metricsService.recordAgentFallback(stepName);
-            metricsService.recordCircuitBreakerFailure(stepName);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(
+                new RejectedExecutionException("Step executor saturated for " + stepName));
         }
         
-        return result;
+        future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((stepResult, error) -> {
+            if (error == null) {
+                latencyTracker.record(stepName, System.currentTimeMillis() - attemptStart);
+            } else {
+                // Stop abandoned work instead of letting it run on in the background
+                task.cancel(true);
+            }
+        });
+        return future;
+    }
+    
+    private StepResult stepSucceeded(String stepName, long startTime, StepPayload stepResult) {
+        long duration = System.currentTimeMillis() - startTime;
+        metricsService.recordToolCall(stepName, true);
+        metricsService.recordAgentLatency(duration);
+        return StepResult.ok(duration, stepResult);
+    }
+    
+    private StepResult stepFailed(String stepName, long startTime, Throwable e) {
+        long duration = System.currentTimeMillis() - startTime;
+        if (e instanceof TimeoutException && e.getMessage() == null) {
+            e = new TimeoutException("Step " + stepName + " timed out");
+        }
+        logger.warn("Step {} timed out or failed after {}ms: {}", stepName, duration, e.getMessage());
+        
+        metricsService.recordToolCall(stepName, false);
+        metricsService.recordAgentFallback(stepName);
+        return StepResult.error(duration, e.getMessage(), createFallbackResult(stepName, e.getMessage()));
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
     }
 
     /**
      * Creates fallback result for failed steps
      */
-    private Map<String, Object> createFallbackResult(String stepName, String error) {
+    private StepPayload createFallbackResult(String stepName, String error) {
+        if ("riskSignals".equals(stepName)) {
+            return RiskAssessment.fallback();
+        }
+        
         Map<String, Object> fallback = new HashMap<>();
         fallback.put("fallbackUsed", true);
         fallback.put("error", error);
-        
-        switch (stepName) {
-            case "riskSignals":
-                fallback.put("riskScore", "medium");
-                fallback.put("reasons", Arrays.asList("risk_unavailable", "rule_based_fallback"));
-                break;
-            case "kbLookup":
-                fallback.put("results", Arrays.asList("No relevant information found"));
-                break;
-            default:
-                fallback.put("message", "Service temporarily unavailable");
+        if ("kbLookup".equals(stepName)) {
+            fallback.put("results", Arrays.asList("No relevant information found"));
+        } else {
+            fallback.put("message", "Service temporarily unavailable");
         }
-        
-        return fallback;
+        return AgentData.of(fallback);
     }
     
     /**
-     * Makes the final decision based on all agent inputs
+     * Makes the final decision from the risk step, adding the workflow's flags
      */
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> makeDecision(TriageRequest request, Map<String, Object> traceData) {
-        Map<String, Object> decision = new HashMap<>();
-        List<String> reasons = new ArrayList<>();
-
-        Map<String, Object> riskData = (Map<String, Object>) traceData.get("step_3_riskSignals");
-        if (riskData != null && riskData.containsKey("data")) {
-            Map<String, Object> riskResult = (Map<String, Object>) riskData.get("data");
-            
-            String riskScore = (String) riskResult.getOrDefault("riskScore", "medium");
-            Object reasonsObj = riskResult.get("reasons");
-            if (reasonsObj instanceof List<?> reasonsList) {
-                for (Object reason : reasonsList) {
-                    if (reason instanceof String) {
-                        reasons.add((String) reason);
-                    }
-                }
-            }
-            
-            decision.put("riskScore", riskScore);
-            decision.put("reasons", reasons);
-        }
-
-        return decision;
+    private Decision makeDecision(StepContext context, Decision.Flag... flags) {
+        RiskAssessment risk = context.payload("step_3_riskSignals", RiskAssessment.class);
+        return Decision.from(risk != null ? risk : RiskAssessment.fallback(), flags);
     }
 
     /**
      * Proposes the final action based on the decision
      */
-    private Map<String, Object> proposeAction(TriageRequest request, Map<String, Object> decisionData) {
-        Map<String, Object> action = new HashMap<>();
-        String riskScore = (String) decisionData.getOrDefault("riskScore", "medium");
-        @SuppressWarnings("unchecked")
-        List<String> reasons = (List<String>) decisionData.getOrDefault("reasons", new ArrayList<>());
+    private ActionProposal proposeAction(Decision decision) {
+        List<String> reasons = decision.reasons();
         
-        switch (riskScore) {
-            case "high":
+        switch (decision.riskScore()) {
+            case HIGH:
                 if (reasons.contains("geo_velocity_violation") || reasons.contains("chargeback_history")) {
-                    action.put("action", "freeze_card");
-                    action.put("requiresOTP", true);
-                } else {
-                    action.put("action", "open_dispute");
-                    action.put("reasonCode", "10.4");
+                    return ActionProposal.of(ActionType.FREEZE_CARD, true);
                 }
-                break;
-            case "medium":
-                action.put("action", "contact_customer");
-                break;
-            case "low":
+                return new ActionProposal(ActionType.OPEN_DISPUTE, false, null, "10.4", null, null);
+            case LOW:
                 if (reasons.contains("duplicate_transaction")) {
-                    action.put("action", "explain_only");
-                } else {
-                    action.put("action", "no_action");
+                    return ActionProposal.of(ActionType.EXPLAIN_ONLY, false);
                 }
-                break;
+                return ActionProposal.of(ActionType.NO_ACTION, false);
             default:
-                action.put("action", "contact_customer");
+                return ActionProposal.of(ActionType.CONTACT_CUSTOMER, false);
         }
-        
-        return action;
-    }
-    
-    private boolean isDuplicateTransaction(String txnId, Map<String, Object> txnData) {
-        return txnId.contains("duplicate") || txnId.contains("pending");
-    }
-    
-    private boolean hasGeoVelocityViolation(Map<String, Object> txnData) {
-        return txnData.containsKey("geo_velocity_violation");
     }
     
-    private boolean hasDeviceChange(Map<String, Object> txnData) {
-        return txnData.containsKey("device_change");
-    }
-    
-    private boolean hasChargebackHistory(Map<String, Object> profileData) {
-        return profileData.containsKey("chargeback_history");
+    /**
+     * Builds the workflow for a transaction whose ingest-time pre-score is decisive: the
+     * decision comes straight from the pre-score, with no lookups or risk scoring
+     */
+    private WorkflowPlan preScoredPlan(TriageRequest request, RiskAssessment preScore) {
+        return WorkflowPlan.builder("pre_scored")
+            .step("step_1_preScore", "preScore", ctx -> preScore)
+            .step("step_2_decide", "decide", ctx -> 
+                Decision.from(ctx.payload("step_1_preScore", RiskAssessment.class)), "step_1_preScore")
+            .step("step_3_proposeAction", "proposeAction", ctx -> 
+                proposeAction(ctx.payload("step_2_decide", Decision.class)), "step_2_decide")
+            .build();
     }
     
     /**
-     * Executes the standard triage workflow
+     * Builds the standard triage workflow
      */
-    private void executeStandardTriageWorkflow(TriageRequest request, Map<String, Object> traceData) {
-        traceData.put("step_1_getProfile", executeStep("getProfile", () -> 
-            profileAgent.getCustomerProfile(request.getCustomerId())));
-        
-        traceData.put("step_2_getRecentTransactions", executeStep("getRecentTransactions", () -> 
-            transactionAgent.getRecentTransactions(request.getCustomerId(), 90)));
-        
-        traceData.put("step_3_riskSignals", executeStep("riskSignals", () -> 
-            riskAgent.analyzeRiskSignals(request.getCustomerId(), request.getSuspectTxnId())));
-        
-        traceData.put("step_4_kbLookup", executeStep("kbLookup", () -> 
-            knowledgeBaseAgent.searchKnowledgeBase(request.getUserMessage())));
-        
-        Map<String, Object> decisionData = executeStep("decide", () -> 
-            makeDecision(request, traceData));
-        traceData.put("step_5_decide", decisionData);
-        
-        Map<String, Object> actionData = executeStep("proposeAction", () -> 
-            proposeAction(request, decisionData));
-        traceData.put("step_6_proposeAction", actionData);
+    private WorkflowPlan standardTriagePlan(TriageRequest request, CustomerLookups lookups) {
+        return WorkflowPlan.builder("standard_triage")
+            .step("step_1_getProfile", "getProfile", ctx -> 
+                AgentData.of(lookups.profile()))
+            .step("step_2_getRecentTransactions", "getRecentTransactions", ctx -> 
+                AgentData.of(lookups.recentTransactions(90)))
+            .step("step_3_riskSignals", "riskSignals", ctx -> 
+                riskAgent.analyzeRiskSignals(request.getCustomerId(), request.getSuspectTxnId(), request.getAlertType()))
+            .step("step_4_kbLookup", "kbLookup", ctx -> 
+                AgentData.of(knowledgeBaseAgent.searchKnowledgeBase(request.getUserMessage())))
+            .step("step_5_decide", "decide", ctx -> 
+                makeDecision(ctx), "step_3_riskSignals")
+            .step("step_6_proposeAction", "proposeAction", ctx -> 
+                proposeAction(ctx.payload("step_5_decide", Decision.class)), "step_5_decide")
+            .build();
     }
     
     /**
-     * Executes the merchant disambiguation workflow
+     * Builds the merchant disambiguation workflow
      */
     @SuppressWarnings("unchecked")
-    private void executeMerchantDisambiguationWorkflow(TriageRequest request, Map<String, Object> traceData) {
-        traceData.put("step_1_getProfile", executeStep("getProfile", () -> 
-            profileAgent.getCustomerProfile(request.getCustomerId())));
-        
-        traceData.put("step_2_getRecentTransactions", executeStep("getRecentTransactions", () -> 
-            transactionAgent.getRecentTransactions(request.getCustomerId(), 90)));
-        
-        traceData.put("step_3_merchant_analysis", executeStep("merchant_analysis", () -> {
-            // Extract merchant name from user message
-            String merchantName = extractMerchantName(request.getUserMessage());
-            return merchantDisambiguationAgent.analyzeMerchantDisambiguation(merchantName, request.getCustomerId());
-        }));
-        
-        Map<String, Object> merchantAnalysis = (Map<String, Object>) traceData.get("step_3_merchant_analysis");
-        Map<String, Object> merchantData = (Map<String, Object>) merchantAnalysis.get("data");
-        
-        if (Boolean.TRUE.equals(merchantData.get("disambiguationRequired"))) {
-            traceData.put("step_4_disambiguation_prompt", executeStep("disambiguation_prompt", () -> {
+    private WorkflowPlan merchantDisambiguationPlan(TriageRequest request, CustomerLookups lookups) {
+        Predicate<StepContext> disambiguationRequired = ctx -> 
+            Boolean.TRUE.equals(ctx.values("step_3_merchant_analysis").get("disambiguationRequired"));
+        
+        return WorkflowPlan.builder("merchant_disambiguation")
+            .step("step_1_getProfile", "getProfile", ctx -> 
+                AgentData.of(lookups.profile()))
+            .step("step_2_getRecentTransactions", "getRecentTransactions", ctx -> 
+                AgentData.of(lookups.recentTransactions(90)))
+            .step("step_3_merchant_analysis", "merchant_analysis", ctx -> {
+                // Extract merchant name from user message
+                String merchantName = extractMerchantName(request.getUserMessage());
+                return AgentData.of(merchantDisambiguationAgent.analyzeMerchantDisambiguation(merchantName, request.getCustomerId()));
+            })
+            .stepIf("step_4_disambiguation_prompt", "disambiguation_prompt", disambiguationRequired, 
+                "No disambiguation needed", ctx -> {
+                Map<String, Object> merchantData = ctx.values("step_3_merchant_analysis");
                 Map<String, Object> promptResult = new HashMap<>();
                 promptResult.put("prompt", merchantData.get("disambiguationPrompt"));
                 promptResult.put("candidates", merchantData.get("candidates"));
                 promptResult.put("originalMerchant", merchantData.get("originalMerchant"));
                 promptResult.put("requiresUserInput", true);
-                return promptResult;
-            }));
-            
-            traceData.put("step_5_user_selection", executeStep("user_selection", () -> {
+                return AgentData.of(promptResult);
+            }, "step_3_merchant_analysis")
+            .stepIf("step_5_user_selection", "user_selection", disambiguationRequired, 
+                "No disambiguation needed", ctx -> {
+                Map<String, Object> merchantData = ctx.values("step_3_merchant_analysis");
                 List<Map<String, Object>> candidates = (List<Map<String, Object>>) merchantData.get("candidates");
                 if (!candidates.isEmpty()) {
                     String selectedMerchant = (String) candidates.get(0).get("merchantName");
-                    return merchantDisambiguationAgent.processMerchantSelection(
+                    return AgentData.of(merchantDisambiguationAgent.processMerchantSelection(
                         (String) merchantData.get("originalMerchant"), 
                         selectedMerchant, 
-                        request.getCustomerId());
+                        request.getCustomerId()));
                 }
-                return Map.of("status", "error", "error", "No candidates available");
-            }));
-            
-            traceData.put("step_6_action_execution", executeStep("action_execution", () -> {
-                Map<String, Object> action = new HashMap<>();
-                action.put("action", "merchant_disambiguated");
-                action.put("message", "Merchant has been disambiguated. Transaction can proceed normally.");
-                action.put("requiresOTP", false);
-                return action;
-            }));
-        } else {
-            traceData.put("step_4_disambiguation_prompt", Map.of("status", "skipped", "reason", "No disambiguation needed"));
-            traceData.put("step_5_user_selection", Map.of("status", "skipped", "reason", "No disambiguation needed"));
-            traceData.put("step_6_action_execution", executeStep("action_execution", () -> {
-                Map<String, Object> action = new HashMap<>();
-                action.put("action", "no_action_required");
-                action.put("message", "Merchant is clear, no disambiguation needed.");
-                action.put("requiresOTP", false);
-                return action;
-            }));
-        }
+                return AgentData.of(Map.of("status", "error", "error", "No candidates available"));
+            }, "step_3_merchant_analysis", "step_4_disambiguation_prompt")
+            .step("step_6_action_execution", "action_execution", ctx -> {
+                if (disambiguationRequired.test(ctx)) {
+                    return new ActionProposal(ActionType.MERCHANT_DISAMBIGUATED, false, 
+                        "Merchant has been disambiguated. Transaction can proceed normally.", null, null, null);
+                }
+                return new ActionProposal(ActionType.NO_ACTION_REQUIRED, false, 
+                    "Merchant is clear, no disambiguation needed.", null, null, null);
+            }, "step_3_merchant_analysis", "step_5_user_selection")
+            .build();
     }
     
     /**
@@ -422,270 +624,162 @@ public class AgentOrchestrator {
     }
     
     /**
-     * Executes the card lost workflow
+     * Builds the card lost workflow
      */
-    private void executeCardLostWorkflow(TriageRequest request, Map<String, Object> traceData) {
+    private WorkflowPlan cardLostPlan(TriageRequest request, CustomerLookups lookups) {
         long startTime = System.nanoTime();
         
-        // Execute profile and transaction lookups in parallel
-        CompletableFuture<Map<String, Object>> profileFuture = CompletableFuture
-            .supplyAsync(() -> executeStep("getProfile", () -> 
-                profileAgent.getCustomerProfile(request.getCustomerId())));
-                
-        CompletableFuture<Map<String, Object>> transactionsFuture = CompletableFuture
-            .supplyAsync(() -> executeStep("getRecentTransactions", () -> 
-                transactionAgent.getRecentTransactions(request.getCustomerId(), 7)));
-
-        // Wait for both operations to complete
-        CompletableFuture.allOf(profileFuture, transactionsFuture).join();
-        
-        traceData.put("step_1_getProfile", profileFuture.join());
-        traceData.put("step_2_getRecentTransactions", transactionsFuture.join());
-        
-        // Execute risk assessment
-        traceData.put("step_3_riskSignals", executeStep("riskSignals", () -> {
-            Map<String, Object> riskData = new HashMap<>();
-            riskData.put("riskScore", "high");
-            riskData.put("reasons", Arrays.asList("card_lost", "immediate_action_required"));
-            riskData.put("confidence", 0.95);
-            return riskData;
-        }));
-        
-        // KB lookup with caching
-        String kbKey = "card_lost_freeze_procedure";
-        traceData.put("step_4_kbLookup", executeStep("kbLookup", () -> {
-            return kbCache.computeIfAbsent(kbKey, k -> 
-                knowledgeBaseAgent.searchKnowledgeBase("card lost freeze procedure"));
-        }));
-        
-        // Decision making
-        traceData.put("step_5_decide", executeStep("decide", () -> {
-            Map<String, Object> decisionData = new HashMap<>();
-            decisionData.put("reasons", Arrays.asList("card_lost", "immediate_action_required"));
-            decisionData.put("fallbackUsed", false);
-            decisionData.put("riskScore", "high");
-            return decisionData;
-        }));
-        
-        // Action execution with performance tracking
-        traceData.put("step_6_action_execution", executeStep("action_execution", () -> {
-            Map<String, Object> actionData = new HashMap<>();
-            actionData.put("action", "freeze_card");
-            actionData.put("requiresOTP", true);
-            actionData.put("message", "Card will be frozen immediately after OTP verification");
-            actionData.put("finalStatus", "FROZEN");
-            actionData.put("executionTime", (System.nanoTime() - startTime) / 1_000_000.0);
-            return actionData;
-        }));
+        return WorkflowPlan.builder("card_lost")
+            .step("step_1_getProfile", "getProfile", ctx -> 
+                AgentData.of(lookups.profile()))
+            .step("step_2_getRecentTransactions", "getRecentTransactions", ctx -> 
+                AgentData.of(lookups.recentTransactions(7)))
+            .step("step_3_riskSignals", "riskSignals", ctx -> 
+                riskAgent.evaluateRules(request.getCustomerId(), request.getSuspectTxnId(), request.getAlertType()))
+            .step("step_4_kbLookup", "kbLookup", ctx -> 
+                AgentData.of(knowledgeBaseAgent.searchKnowledgeBase("card lost freeze procedure")))
+            .step("step_5_decide", "decide", ctx -> 
+                makeDecision(ctx), "step_3_riskSignals")
+            // Action execution with performance tracking
+            .step("step_6_action_execution", "action_execution", ctx -> 
+                new ActionProposal(ActionType.FREEZE_CARD, true, 
+                    "Card will be frozen immediately after OTP verification", null, "FROZEN", 
+                    Map.of("executionTime", (System.nanoTime() - startTime) / 1_000_000.0)), "step_5_decide")
+            .build();
     }
     
     /**
-     * Executes the duplicate charge workflow
+     * Builds the duplicate charge workflow
      */
-    private void executeDuplicateChargeWorkflow(TriageRequest request, Map<String, Object> traceData) {
-        traceData.put("step_1_getProfile", executeStep("getProfile", () -> 
-            profileAgent.getCustomerProfile(request.getCustomerId())));
-        
-        traceData.put("step_2_getRecentTransactions", executeStep("getRecentTransactions", () -> 
-            transactionAgent.getRecentTransactions(request.getCustomerId(), 30))); // Last 30 days for duplicates
-        
-        // Step 3: Risk Assessment for Duplicate Charges
-        traceData.put("step_3_riskSignals", executeStep("riskSignals", () -> {
-            Map<String, Object> riskData = new HashMap<>();
-            riskData.put("riskScore", "low");
-            riskData.put("reasons", Arrays.asList("duplicate_transaction", "preauth_capture"));
-            riskData.put("confidence", 0.90);
-            riskData.put("analysisTime", System.currentTimeMillis());
-            return riskData;
-        }));
-        
-        traceData.put("step_4_kbLookup", executeStep("kbLookup", () -> 
-            knowledgeBaseAgent.searchKnowledgeBase("duplicate charge preauth capture explanation")));
-        
-        traceData.put("step_5_decide", executeStep("decide", () -> {
-            Map<String, Object> decisionData = new HashMap<>();
-            decisionData.put("reasons", Arrays.asList("duplicate_transaction", "preauth_capture"));
-            decisionData.put("fallbackUsed", false);
-            decisionData.put("riskScore", "low");
-            decisionData.put("riskDowngraded", true);
-            return decisionData;
-        }));
-        
-        // Step 6: Action Execution - Explain Only
-        traceData.put("step_6_action_execution", executeStep("action_execution", () -> {
-            Map<String, Object> actionData = new HashMap<>();
-            actionData.put("action", "explain_only");
-            actionData.put("requiresOTP", false);
-            actionData.put("message", "This appears to be a preauthorization followed by capture. The first charge will be released within 1-3 business days.");
-            actionData.put("noDispute", true);
-            return actionData;
-        }));
+    private WorkflowPlan duplicateChargePlan(TriageRequest request, CustomerLookups lookups) {
+        return WorkflowPlan.builder("duplicate_charge")
+            .step("step_1_getProfile", "getProfile", ctx -> 
+                AgentData.of(lookups.profile()))
+            .step("step_2_getRecentTransactions", "getRecentTransactions", ctx -> 
+                AgentData.of(lookups.recentTransactions(30))) // Last 30 days for duplicates
+            // Step 3: Risk Assessment for Duplicate Charges
+            .step("step_3_riskSignals", "riskSignals", ctx -> 
+                riskAgent.evaluateRules(request.getCustomerId(), request.getSuspectTxnId(), request.getAlertType()))
+            .step("step_4_kbLookup", "kbLookup", ctx -> 
+                AgentData.of(knowledgeBaseAgent.searchKnowledgeBase("duplicate charge preauth capture explanation")))
+            .step("step_5_decide", "decide", ctx -> 
+                makeDecision(ctx, Decision.Flag.RISK_DOWNGRADED), "step_3_riskSignals")
+            // Step 6: Action Execution - Explain Only
+            .step("step_6_action_execution", "action_execution", ctx -> 
+                new ActionProposal(ActionType.EXPLAIN_ONLY, false, 
+                    "This appears to be a preauthorization followed by capture. The first charge will be released within 1-3 business days.", 
+                    null, null, Map.of("noDispute", true)), "step_5_decide")
+            .build();
     }
     
     /**
-     * Executes the unauthorized charge workflow
+     * Builds the unauthorized charge workflow
      */
-    private void executeUnauthorizedChargeWorkflow(TriageRequest request, Map<String, Object> traceData) {
-        traceData.put("step_1_getProfile", executeStep("getProfile", () -> 
-            profileAgent.getCustomerProfile(request.getCustomerId())));
-        
-        traceData.put("step_2_getRecentTransactions", executeStep("getRecentTransactions", () -> 
-            transactionAgent.getRecentTransactions(request.getCustomerId(), 90)));
-        
-        // Step 3: Risk Assessment for Unauthorized Charge
-        traceData.put("step_3_riskSignals", executeStep("riskSignals", () -> {
-            Map<String, Object> riskData = new HashMap<>();
-            riskData.put("riskScore", "high");
-            riskData.put("reasons", Arrays.asList("unauthorized_transaction", "fraud_pattern"));
-            riskData.put("confidence", 0.95);
-            riskData.put("analysisTime", System.currentTimeMillis());
-            return riskData;
-        }));
-        
-        traceData.put("step_4_kbLookup", executeStep("kbLookup", () -> 
-            knowledgeBaseAgent.searchKnowledgeBase("unauthorized charge dispute procedure")));
-        
-        traceData.put("step_5_decide", executeStep("decide", () -> {
-            Map<String, Object> decisionData = new HashMap<>();
-            decisionData.put("reasons", Arrays.asList("unauthorized_transaction", "fraud_pattern"));
-            decisionData.put("fallbackUsed", false);
-            decisionData.put("riskScore", "high");
-            return decisionData;
-        }));
-        
-        // Step 6: Action Execution - Open Dispute
-        traceData.put("step_6_action_execution", executeStep("action_execution", () -> {
-            Map<String, Object> actionData = new HashMap<>();
-            actionData.put("action", "open_dispute");
-            actionData.put("requiresOTP", false);
-            actionData.put("message", "Dispute will be opened with reason code 10.4 (Unauthorized transaction)");
-            actionData.put("reasonCode", "10.4");
-            actionData.put("finalStatus", "OPEN");
-            return actionData;
-        }));
+    private WorkflowPlan unauthorizedChargePlan(TriageRequest request, CustomerLookups lookups) {
+        return WorkflowPlan.builder("unauthorized_charge")
+            .step("step_1_getProfile", "getProfile", ctx -> 
+                AgentData.of(lookups.profile()))
+            .step("step_2_getRecentTransactions", "getRecentTransactions", ctx -> 
+                AgentData.of(lookups.recentTransactions(90)))
+            // Step 3: Risk Assessment for Unauthorized Charge
+            .step("step_3_riskSignals", "riskSignals", ctx -> 
+                riskAgent.evaluateRules(request.getCustomerId(), request.getSuspectTxnId(), request.getAlertType()))
+            .step("step_4_kbLookup", "kbLookup", ctx -> 
+                AgentData.of(knowledgeBaseAgent.searchKnowledgeBase("unauthorized charge dispute procedure")))
+            .step("step_5_decide", "decide", ctx -> 
+                makeDecision(ctx), "step_3_riskSignals")
+            // Step 6: Action Execution - Open Dispute
+            .step("step_6_action_execution", "action_execution", ctx -> 
+                new ActionProposal(ActionType.OPEN_DISPUTE, false, 
+                    "Dispute will be opened with reason code 10.4 (Unauthorized transaction)", "10.4", "OPEN", null), 
+                "step_5_decide")
+            .build();
     }
     
     /**
-     * Executes the geo-velocity workflow
+     * Builds the geo-velocity workflow
      */
-    private void executeGeoVelocityWorkflow(TriageRequest request, Map<String, Object> traceData) {
-        traceData.put("step_1_getProfile", executeStep("getProfile", () -> 
-            profileAgent.getCustomerProfile(request.getCustomerId())));
-        
-        traceData.put("step_2_getRecentTransactions", executeStep("getRecentTransactions", () -> 
-            transactionAgent.getRecentTransactions(request.getCustomerId(), 24))); // Last 24 hours for geo velocity
-        
-        // Step 3: Risk Assessment for Geo-Velocity
-        traceData.put("step_3_riskSignals", executeStep("riskSignals", () -> {
-            Map<String, Object> riskData = new HashMap<>();
-            riskData.put("riskScore", "high");
-            riskData.put("reasons", Arrays.asList("geo_velocity_violation", "impossible_travel"));
-            riskData.put("confidence", 0.95);
-            riskData.put("analysisTime", System.currentTimeMillis());
-            riskData.put("geoVelocityViolation", true);
-            return riskData;
-        }));
-        
-        traceData.put("step_4_kbLookup", executeStep("kbLookup", () -> 
-            knowledgeBaseAgent.searchKnowledgeBase("geo velocity violation impossible travel")));
-        
-        traceData.put("step_5_decide", executeStep("decide", () -> {
-            Map<String, Object> decisionData = new HashMap<>();
-            decisionData.put("reasons", Arrays.asList("geo_velocity_violation", "impossible_travel"));
-            decisionData.put("fallbackUsed", false);
-            decisionData.put("riskScore", "high");
-            decisionData.put("proposeFreeze", true);
-            return decisionData;
-        }));
-        
-        // Step 6: Action Execution - Freeze Card
-        traceData.put("step_6_action_execution", executeStep("action_execution", () -> {
-            Map<String, Object> actionData = new HashMap<>();
-            actionData.put("action", "freeze_card");
-            actionData.put("requiresOTP", false);
-            actionData.put("message", "Impossible travel detected. Card frozen for security. Please contact customer service for verification.");
-            actionData.put("finalStatus", "FROZEN");
-            actionData.put("geoVelocityViolation", true);
-            return actionData;
-        }));
+    private WorkflowPlan geoVelocityPlan(TriageRequest request, CustomerLookups lookups) {
+        return WorkflowPlan.builder("geo_velocity")
+            .step("step_1_getProfile", "getProfile", ctx -> 
+                AgentData.of(lookups.profile()))
+            .step("step_2_getRecentTransactions", "getRecentTransactions", ctx -> 
+                AgentData.of(lookups.recentTransactions(24))) // Last 24 hours for geo velocity
+            // Step 3: Risk Assessment for Geo-Velocity
+            .step("step_3_riskSignals", "riskSignals", ctx -> 
+                riskAgent.evaluateRules(request.getCustomerId(), request.getSuspectTxnId(), request.getAlertType()))
+            .step("step_4_kbLookup", "kbLookup", ctx -> 
+                AgentData.of(knowledgeBaseAgent.searchKnowledgeBase("geo velocity violation impossible travel")))
+            .step("step_5_decide", "decide", ctx -> 
+                makeDecision(ctx, Decision.Flag.PROPOSE_FREEZE), "step_3_riskSignals")
+            // Step 6: Action Execution - Freeze Card
+            .step("step_6_action_execution", "action_execution", ctx -> 
+                new ActionProposal(ActionType.FREEZE_CARD, false, 
+                    "Impossible travel detected. Card frozen for security. Please contact customer service for verification.", 
+                    null, "FROZEN", Map.of("geoVelocityViolation", true)), "step_5_decide")
+            .build();
     }
     
     /**
-     * Executes the chargeback escalation workflow
+     * Builds the chargeback escalation workflow
      */
-    private void executeChargebackEscalationWorkflow(TriageRequest request, Map<String, Object> traceData) {
-        traceData.put("step_1_getProfile", executeStep("getProfile", () -> 
-            profileAgent.getCustomerProfile(request.getCustomerId())));
-        
-        traceData.put("step_2_getRecentTransactions", executeStep("getRecentTransactions", () -> 
-            transactionAgent.getRecentTransactions(request.getCustomerId(), 90)));
-        
-        // Step 3: Risk Assessment for Chargeback History
-        traceData.put("step_3_riskSignals", executeStep("riskSignals", () -> {
-            Map<String, Object> riskData = new HashMap<>();
-            riskData.put("riskScore", "high");
-            riskData.put("reasons", Arrays.asList("chargeback_history", "repeat_offender"));
-            riskData.put("confidence", 0.90);
-            riskData.put("analysisTime", System.currentTimeMillis());
-            riskData.put("chargebackHistory", true);
-            return riskData;
-        }));
-        
-        traceData.put("step_4_kbLookup", executeStep("kbLookup", () -> 
-            knowledgeBaseAgent.searchKnowledgeBase("chargeback history escalation procedures")));
-        
-        traceData.put("step_5_decide", executeStep("decide", () -> {
-            Map<String, Object> decisionData = new HashMap<>();
-            decisionData.put("reasons", Arrays.asList("chargeback_history", "repeat_offender"));
-            decisionData.put("fallbackUsed", false);
-            decisionData.put("riskScore", "high");
-            decisionData.put("escalateToLead", true);
-            decisionData.put("openCase", true);
-            return decisionData;
-        }));
-        
-        // Step 6: Action Execution - Escalate
-        traceData.put("step_6_action_execution", executeStep("action_execution", () -> {
-            Map<String, Object> actionData = new HashMap<>();
-            actionData.put("action", "escalate");
-            actionData.put("requiresOTP", false);
-            actionData.put("message", "Customer has chargeback history. Escalating to team lead for special handling.");
-            actionData.put("escalateToLead", true);
-            actionData.put("openCase", true);
-            actionData.put("finalStatus", "ESCALATED");
-            return actionData;
-        }));
+    private WorkflowPlan chargebackEscalationPlan(TriageRequest request, CustomerLookups lookups) {
+        return WorkflowPlan.builder("chargeback_escalation")
+            .step("step_1_getProfile", "getProfile", ctx -> 
+                AgentData.of(lookups.profile()))
+            .step("step_2_getRecentTransactions", "getRecentTransactions", ctx -> 
+                AgentData.of(lookups.recentTransactions(90)))
+            // Step 3: Risk Assessment for Chargeback History
+            .step("step_3_riskSignals", "riskSignals", ctx -> 
+                riskAgent.evaluateRules(request.getCustomerId(), request.getSuspectTxnId(), request.getAlertType()))
+            .step("step_4_kbLookup", "kbLookup", ctx -> 
+                AgentData.of(knowledgeBaseAgent.searchKnowledgeBase("chargeback history escalation procedures")))
+            .step("step_5_decide", "decide", ctx -> 
+                makeDecision(ctx, Decision.Flag.ESCALATE_TO_LEAD, Decision.Flag.OPEN_CASE), "step_3_riskSignals")
+            // Step 6: Action Execution - Escalate
+            .step("step_6_action_execution", "action_execution", ctx -> 
+                escalateChargebackHistory(ctx.values("step_1_getProfile")), "step_1_getProfile", "step_5_decide")
+            .build();
     }
     
     /**
-     * Executes the KB FAQ workflow
+     * Escalation carrying the chargeback aggregates from the profile step
      */
-    @SuppressWarnings("unchecked")
-    private void executeKbFaqWorkflow(TriageRequest request, Map<String, Object> traceData) {
-        // Step 1: KB Search
-        traceData.put("step_1_kb_search", executeStep("kb_search", new AgentStep() {
-            @Override
-            public Map<String, Object> execute() throws Exception {
-                return knowledgeBaseAgent.searchKnowledgeBase(request.getUserMessage());
+    private ActionProposal escalateChargebackHistory(Map<String, Object> profile) {
+        Map<String, Object> details = new HashMap<>();
+        details.put("escalateToLead", true);
+        details.put("openCase", true);
+        for (String key : List.of("chargeback_count", "chargeback_open", "chargeback_total_amount", "chargeback_last_reason_code")) {
+            if (profile.get(key) != null) {
+                details.put(key, profile.get(key));
             }
-        }));
-
-        // Step 2: Content Retrieval
-        traceData.put("step_2_content_retrieval", executeStep("content_retrieval", new AgentStep() {
-            @Override
-            public Map<String, Object> execute() throws Exception {
+        }
+        
+        String message = profile.get("chargeback_count") instanceof Integer count && count > 0
+            ? String.format("Customer has %d chargebacks (%s open). Escalating to team lead for special handling.",
+                            count, profile.get("chargeback_open"))
+            : "Customer has chargeback history. Escalating to team lead for special handling.";
+        return new ActionProposal(ActionType.ESCALATE, false, message, null, "ESCALATED", details);
+    }
+    
+    /**
+     * Builds the KB FAQ workflow
+     */
+    private WorkflowPlan kbFaqPlan(TriageRequest request, CustomerLookups lookups) {
+        return WorkflowPlan.builder("kb_faq")
+            // Step 1: KB Search
+            .step("step_1_kb_search", "kb_search", ctx -> 
+                AgentData.of(knowledgeBaseAgent.searchKnowledgeBase(request.getUserMessage())))
+            // Step 2: Content Retrieval
+            .step("step_2_content_retrieval", "content_retrieval", ctx -> {
                 Map<String, Object> contentData = new HashMap<>();
                 contentData.put("query", request.getUserMessage());
                 contentData.put("kbLookup", true);
                 contentData.put("travelNotice", request.getUserMessage().toLowerCase().contains("travel notice"));
-                return contentData;
-            }
-        }));
-
-        // Step 3: Citation Generation
-        traceData.put("step_3_citation_generation", executeStep("citation_generation", new AgentStep() {
-            @Override
-            public Map<String, Object> execute() throws Exception {
+                return AgentData.of(contentData);
+            })
+            // Step 3: Citation Generation
+            .step("step_3_citation_generation", "citation_generation", ctx -> {
                 Map<String, Object> citationData = new HashMap<>();
                 citationData.put("citedSteps", true);
                 citationData.put("citationProvided", true);
@@ -696,26 +790,16 @@ public class AgentOrchestrator {
                     "4. Enter your travel dates and destinations",
                     "5. Submit the notice"
                 ));
-                return citationData;
-            }
-        }));
-
-        // Step 4: Action Card Creation
-        traceData.put("step_4_action_card_creation", executeStep("action_card_creation", new AgentStep() {
-            @Override
-            public Map<String, Object> execute() throws Exception {
-                Map<String, Object> actionData = new HashMap<>();
-                actionData.put("action", "provide_guidance");
-                actionData.put("actionCard", true);
-                actionData.put("message", "Here's how to set a travel notice for your upcoming trip:");
-                actionData.put("requiresOTP", false);
-                actionData.put("kbLookup", true);
-                actionData.put("citedSteps", true);
-                actionData.put("travelNotice", true);
-                actionData.put("citationProvided", true);
-                return actionData;
-            }
-        }));
+                return AgentData.of(citationData);
+            }, "step_1_kb_search")
+            // Step 4: Action Card Creation
+            .step("step_4_action_card_creation", "action_card_creation", ctx -> 
+                new ActionProposal(ActionType.PROVIDE_GUIDANCE, false, 
+                    "Here's how to set a travel notice for your upcoming trip:", null, null, 
+                    Map.of("actionCard", true, "kbLookup", true, "citedSteps", true, 
+                           "travelNotice", true, "citationProvided", true)), 
+                "step_2_content_retrieval", "step_3_citation_generation")
+            .build();
     }
 
     /**
@@ -723,6 +807,6 @@ public class AgentOrchestrator {
      */
     @FunctionalInterface
     private interface AgentStep {
-        Map<String, Object> execute() throws Exception;
+        StepPayload execute() throws Exception;
     }
 }
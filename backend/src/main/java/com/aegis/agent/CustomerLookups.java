@@ -0,0 +1,68 @@
+package com.aegis.agent;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Profile and transaction lookups for one customer. A shared instance fetches each
+ * lookup once and hands the same result to every workflow of a batch; concurrent
+ * callers wait for the in-flight fetch instead of repeating it.
+ */
+public class CustomerLookups {
+    
+    private final String customerId;
+    private final ProfileAgent profileAgent;
+    private final TransactionAgent transactionAgent;
+    private final boolean shared;
+    private final Map<String, CompletableFuture<Map<String, Object>>> results = new ConcurrentHashMap<>();
+    
+    CustomerLookups(String customerId, ProfileAgent profileAgent, TransactionAgent transactionAgent, boolean shared) {
+        this.customerId = customerId;
+        this.profileAgent = profileAgent;
+        this.transactionAgent = transactionAgent;
+        this.shared = shared;
+    }
+    
+    public String getCustomerId() {
+        return customerId;
+    }
+    
+    public Map<String, Object> profile() throws Exception {
+        return lookup("profile", () -> profileAgent.getCustomerProfile(customerId));
+    }
+    
+    public Map<String, Object> recentTransactions(int days) throws Exception {
+        return lookup("transactions:" + days, () -> transactionAgent.getRecentTransactions(customerId, days));
+    }
+    
+    private Map<String, Object> lookup(String key, Supplier<Map<String, Object>> fetch) throws Exception {
+        // Unshared lookups go straight to the agent so hedged attempts really run twice
+        if (!shared) {
+            return fetch.get();
+        }
+        
+        CompletableFuture<Map<String, Object>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = results.putIfAbsent(key, created);
+        if (existing != null) {
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+        
+        try {
+            Map<String, Object> result = fetch.get();
+            created.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Let a later workflow in the batch try again
+            results.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+}
@@ -1,29 +1,74 @@
 package com.aegis.agent;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.aegis.kb.KbChunk;
+import com.aegis.kb.KbHit;
+import com.aegis.kb.KbSearchMode;
+import com.aegis.kb.KbSnapshot;
+import com.aegis.kb.KnowledgeBaseStore;
+import com.aegis.kb.RenderedDocument;
+import com.aegis.metrics.MetricsService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.*;
 import java.util.*;
 
 @Service
 public class KnowledgeBaseAgent {
     
     private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseAgent.class);
+    private static final int MAX_RESULTS = 3;
     
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private List<Map<String, Object>> kbDocuments;
+    /**
+     * Results are cached per snapshot version, so a refreshed knowledge base is never
+     * answered from results ranked against the old one
+     */
+    private record QueryKey(long version, String query) {}
+    
+    @Autowired
+    private KnowledgeBaseStore knowledgeBaseStore;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Value("${aegis.kb.search.mode:hybrid}")
+    private String searchMode;
+    
+    @Value("${aegis.kb.search.candidates:20}")
+    private int candidates;
+    
+    @Value("${aegis.kb.vector.min-similarity:0.15}")
+    private double minSimilarity;
+    
+    @Value("${aegis.kb.search.cache.max-size:10000}")
+    private long cacheMaxSize;
     
-    public KnowledgeBaseAgent() {
-        loadKnowledgeBase();
+    private KbSearchMode mode;
+    private Cache<QueryKey, List<Map<String, Object>>> queryCache;
+    private volatile long cachedVersion;
+    
+    @PostConstruct
+    void init() {
+        try {
+            mode = KbSearchMode.valueOf(searchMode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown aegis.kb.search.mode: " + searchMode);
+        }
+        queryCache = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .build();
+        logger.info("Knowledge base search initialized: mode={}, cacheMaxSize={}", mode, cacheMaxSize);
     }
     
     /**
-     * Searches the knowledge base for relevant information
+     * Searches the knowledge base for the chunks that best match the query, ranked by BM25,
+     * embedding similarity or both, depending on {@code aegis.kb.search.mode}. Queries that
+     * differ only in case, spacing or word order share a cached result.
      */
     public Map<String, Object> searchKnowledgeBase(String query) {
         logger.debug("Searching knowledge base for query: {}", query);
@@ -37,43 +82,21 @@ public class KnowledgeBaseAgent {
                 return result;
             }
             
-            String lowerQuery = query.toLowerCase();
-            
-            for (Map<String, Object> doc : kbDocuments) {
-                String title = (String) doc.get("title");
-                String anchor = (String) doc.get("anchor");
-                List<Map<String, Object>> chunks = (List<Map<String, Object>>) doc.get("chunks");
-                
-                // Simple keyword matching
-                if (title.toLowerCase().contains(lowerQuery) || 
-                    anchor.toLowerCase().contains(lowerQuery)) {
-                    
-                    for (Map<String, Object> chunk : chunks) {
-                        String content = (String) chunk.get("content");
-                        if (content.toLowerCase().contains(lowerQuery)) {
-                            Map<String, Object> match = new HashMap<>();
-                            match.put("docId", doc.get("id"));
-                            match.put("title", title);
-                            match.put("anchor", anchor);
-                            match.put("extract", content);
-                            match.put("relevance", calculateRelevance(lowerQuery, content));
-                            results.add(match);
-                        }
-                    }
-                }
+            KbSnapshot snapshot = knowledgeBaseStore.snapshot();
+            if (snapshot.version() != cachedVersion) {
+                // Entries for older versions can no longer hit; free the space now
+                cachedVersion = snapshot.version();
+                queryCache.invalidateAll();
             }
             
-            // Sort by relevance
-            results.sort((a, b) -> {
-                Double relevanceA = (Double) a.get("relevance");
-                Double relevanceB = (Double) b.get("relevance");
-                return relevanceB.compareTo(relevanceA);
-            });
-            
-            // Limit results
-            if (results.size() > 3) {
-                results = results.subList(0, 3);
+            QueryKey key = new QueryKey(snapshot.version(), normalize(query));
+            List<Map<String, Object>> cached = queryCache.getIfPresent(key);
+            metricsService.recordKbSearchCacheLookup(cached != null);
+            if (cached == null) {
+                cached = rank(snapshot, query);
+                queryCache.put(key, cached);
             }
+            results.addAll(cached);
             
             result.put("results", results);
             result.put("query", query);
@@ -90,76 +113,41 @@ public class KnowledgeBaseAgent {
         return result;
     }
     
-    /**
-     * Loads knowledge base documents from JSON file
-     */
-    private void loadKnowledgeBase() {
-        try {
-            // Try to load from mounted volume first, then fallback to classpath
-            File kbFile = new File("/app/fixtures/kb/kb_docs.json");
-            InputStream inputStream;
-            if (kbFile.exists()) {
-                inputStream = new FileInputStream(kbFile);
-            } else {
-                ClassPathResource resource = new ClassPathResource("fixtures/kb/kb_docs.json");
-                inputStream = resource.getInputStream();
-            }
-            JsonNode rootNode = objectMapper.readTree(inputStream);
-            
-            kbDocuments = new ArrayList<>();
-            for (JsonNode docNode : rootNode) {
-                Map<String, Object> doc = new HashMap<>();
-                doc.put("id", docNode.get("id").asText());
-                doc.put("title", docNode.get("title").asText());
-                doc.put("anchor", docNode.get("anchor").asText());
-                
-                List<Map<String, Object>> chunks = new ArrayList<>();
-                for (JsonNode chunkNode : docNode.get("chunks")) {
-                    Map<String, Object> chunk = new HashMap<>();
-                    chunk.put("id", chunkNode.get("id").asText());
-                    chunk.put("content", chunkNode.get("content").asText());
-                    chunk.put("metadata", chunkNode.get("metadata"));
-                    chunks.add(chunk);
-                }
-                doc.put("chunks", chunks);
-                
-                kbDocuments.add(doc);
-            }
-            
-            logger.info("Loaded {} knowledge base documents", kbDocuments.size());
-            
-        } catch (IOException e) {
-            logger.error("Failed to load knowledge base documents", e);
-            kbDocuments = new ArrayList<>();
+    private List<Map<String, Object>> rank(KbSnapshot snapshot, String query) {
+        List<Map<String, Object>> matches = new ArrayList<>();
+        for (KbHit hit : snapshot.search(query, MAX_RESULTS, mode, candidates, minSimilarity)) {
+            KbChunk chunk = hit.chunk();
+            matches.add(Map.of(
+                "docId", chunk.docId(),
+                "title", chunk.title(),
+                "anchor", chunk.anchor(),
+                "extract", chunk.content(),
+                "relevance", hit.score()));
         }
+        return List.copyOf(matches);
     }
     
     /**
-     * Calculates relevance score for a match
+     * Lower-cased words in sorted order. Both rankings treat a query as a bag of words, so
+     * this never merges queries that would rank differently.
      */
-    private double calculateRelevance(String query, String content) {
-        String lowerContent = content.toLowerCase();
-        String[] queryWords = query.split("\\s+");
-        
-        int matches = 0;
-        for (String word : queryWords) {
-            if (lowerContent.contains(word)) {
-                matches++;
-            }
-        }
-        
-        return (double) matches / queryWords.length;
+    static String normalize(String query) {
+        String[] words = query.trim().toLowerCase(Locale.ROOT).split("\\s+");
+        Arrays.sort(words);
+        return String.join(" ", words);
     }
     
     /**
      * Gets a specific knowledge base document by ID
      */
     public Map<String, Object> getDocumentById(String docId) {
-        for (Map<String, Object> doc : kbDocuments) {
-            if (docId.equals(doc.get("id"))) {
-                return doc;
-            }
-        }
-        return null;
+        return knowledgeBaseStore.snapshot().documents().get(docId);
+    }
+    
+    /**
+     * Gets a knowledge base document by ID as pre-rendered JSON
+     */
+    public RenderedDocument getRenderedDocument(String docId) {
+        return knowledgeBaseStore.snapshot().rendered(docId);
     }
 }
@@ -2,6 +2,8 @@ package com.aegis.agent;
 
 import com.aegis.entity.Customer;
 import com.aegis.repository.CustomerRepository;
+import com.aegis.service.ChargebackHistory;
+import com.aegis.service.ChargebackService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,42 +21,47 @@ public class ProfileAgent {
     @Autowired
     private CustomerRepository customerRepository;
     
+    @Autowired
+    private ChargebackService chargebackService;
+    
     /**
-     * Retrieves customer profile information
+     * Retrieves customer profile information. Lookup failures are thrown, so the
+     * orchestrator can retry them and count them against the step's circuit breaker.
      */
     public Map<String, Object> getCustomerProfile(String customerId) {
         logger.debug("Getting customer profile for customerId={}", customerId);
         
         Map<String, Object> result = new HashMap<>();
         
-        try {
-            Optional<Customer> customerOpt = customerRepository.findActiveById(customerId);
+        Optional<Customer> customerOpt = customerRepository.findActiveById(customerId);
+        
+        if (customerOpt.isPresent()) {
+            Customer customer = customerOpt.get();
+            
+            result.put("customerId", customer.getId());
+            result.put("name", customer.getName());
+            result.put("emailMasked", customer.getEmailMasked());
+            result.put("riskFlags", customer.getRiskFlags());
+            result.put("status", customer.getStatus());
+            result.put("createdAt", customer.getCreatedAt());
             
-            if (customerOpt.isPresent()) {
-                Customer customer = customerOpt.get();
-                
-                result.put("customerId", customer.getId());
-                result.put("name", customer.getName());
-                result.put("emailMasked", customer.getEmailMasked());
-                result.put("riskFlags", customer.getRiskFlags());
-                result.put("status", customer.getStatus());
-                result.put("createdAt", customer.getCreatedAt());
-                
-                // Check for chargeback history (simplified)
-                if (customer.getRiskFlags() != null && customer.getRiskFlags().contains("chargeback_history")) {
-                    result.put("chargeback_history", true);
-                    result.put("chargeback_count", 2); // Mock data
+            ChargebackHistory chargebacks = chargebackService.history(customerId);
+            boolean flagged = customer.getRiskFlags() != null && customer.getRiskFlags().contains("chargeback_history");
+            if (flagged || chargebacks.hasChargebacks()) {
+                result.put("chargeback_history", true);
+                result.put("chargeback_count", chargebacks.count());
+                result.put("chargeback_total_amount", chargebacks.totalAmount());
+                result.put("chargeback_open", chargebacks.open());
+                result.put("chargeback_resolved", chargebacks.resolved());
+                if (chargebacks.lastReasonCode() != null) {
+                    result.put("chargeback_last_reason_code", chargebacks.lastReasonCode());
+                    result.put("chargeback_last_at", chargebacks.lastCreatedAt());
                 }
-                
-                logger.debug("Retrieved profile for customerId={}", customerId);
-            } else {
-                result.put("error", "Customer not found");
-                result.put("customerId", customerId);
             }
             
-        } catch (Exception e) {
-            logger.error("Error retrieving customer profile for customerId={}", customerId, e);
-            result.put("error", "Failed to retrieve customer profile");
+            logger.debug("Retrieved profile for customerId={}", customerId);
+        } else {
+            result.put("error", "Customer not found");
             result.put("customerId", customerId);
         }
         
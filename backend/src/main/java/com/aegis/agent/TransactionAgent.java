@@ -2,6 +2,12 @@ package com.aegis.agent;
 
 import com.aegis.entity.Transaction;
 import com.aegis.repository.TransactionRepository;
+import com.aegis.risk.CustomerDeviceProfile;
+import com.aegis.risk.CustomerFeatureStore;
+import com.aegis.risk.DeviceTrustCache;
+import com.aegis.risk.DuplicateChargeDetector;
+import com.aegis.risk.DuplicateChargePair;
+import com.aegis.risk.GeoVelocityEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +16,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.*;
 
@@ -17,128 +25,135 @@ import java.util.*;
 public class TransactionAgent {
     
     private static final Logger logger = LoggerFactory.getLogger(TransactionAgent.class);
+    private static final Duration NEW_DEVICE_WINDOW = Duration.ofHours(24);
+    private static final int MIN_HISTORY_FOR_NOVELTY = 5;
     
     @Autowired
     private TransactionRepository transactionRepository;
     
+    @Autowired
+    private GeoVelocityEngine geoVelocityEngine;
+    
+    @Autowired
+    private CustomerFeatureStore featureStore;
+    
+    @Autowired
+    private DuplicateChargeDetector duplicateChargeDetector;
+    
+    @Autowired
+    private DeviceTrustCache deviceTrustCache;
+    
     /**
-     * Retrieves recent transactions for a customer
+     * Retrieves recent transactions for a customer. Lookup failures are thrown, so the
+     * orchestrator can retry them and count them against the step's circuit breaker.
      */
     public Map<String, Object> getRecentTransactions(String customerId, int days) {
         logger.debug("Getting recent transactions for customerId={}, days={}", customerId, days);
         
         Map<String, Object> result = new HashMap<>();
         
-        try {
-            OffsetDateTime fromDate = OffsetDateTime.now().minusDays(days);
-            Pageable pageable = PageRequest.of(0, 100); // Limit to 100 recent transactions
-            
-            Page<Transaction> transactions = transactionRepository
-                .findByCustomerIdAndTsAfterOrderByTsDesc(customerId, fromDate, pageable);
-            
-            List<Map<String, Object>> transactionList = new ArrayList<>();
+        OffsetDateTime fromDate = OffsetDateTime.now().minusDays(days);
+        Pageable pageable = PageRequest.of(0, 100); // Limit to 100 recent transactions
+        
+        Page<Transaction> transactions = transactionRepository
+            .findByCustomerIdAndTsAfterOrderByTsDesc(customerId, fromDate, pageable);
+        
+        List<Map<String, Object>> transactionList = new ArrayList<>();
+        
+        for (Transaction txn : transactions.getContent()) {
+            Map<String, Object> txnData = new HashMap<>();
+            txnData.put("id", txn.getId());
+            txnData.put("merchant", txn.getMerchant());
+            txnData.put("amount", txn.getAmount());
+            txnData.put("currency", txn.getCurrency());
+            txnData.put("mcc", txn.getMcc());
+            txnData.put("ts", txn.getTs());
+            txnData.put("status", txn.getStatus());
+            txnData.put("deviceId", txn.getDeviceId());
             
-            for (Transaction txn : transactions.getContent()) {
-                Map<String, Object> txnData = new HashMap<>();
-                txnData.put("id", txn.getId());
-                txnData.put("merchant", txn.getMerchant());
-                txnData.put("amount", txn.getAmount());
-                txnData.put("currency", txn.getCurrency());
-                txnData.put("mcc", txn.getMcc());
-                txnData.put("ts", txn.getTs());
-                txnData.put("status", txn.getStatus());
-                txnData.put("deviceId", txn.getDeviceId());
-                
-                if (txn.getGeoLat() != null && txn.getGeoLon() != null) {
-                    Map<String, Object> geo = new HashMap<>();
-                    geo.put("lat", txn.getGeoLat());
-                    geo.put("lon", txn.getGeoLon());
-                    geo.put("country", txn.getGeoCountry());
-                    geo.put("city", txn.getGeoCity());
-                    txnData.put("geo", geo);
-                }
-                
-                transactionList.add(txnData);
+            if (txn.getGeoLat() != null && txn.getGeoLon() != null) {
+                Map<String, Object> geo = new HashMap<>();
+                geo.put("lat", txn.getGeoLat());
+                geo.put("lon", txn.getGeoLon());
+                geo.put("country", txn.getGeoCountry());
+                geo.put("city", txn.getGeoCity());
+                txnData.put("geo", geo);
             }
             
-            result.put("transactions", transactionList);
-            result.put("totalCount", transactions.getTotalElements());
-            result.put("fromDate", fromDate);
-            result.put("toDate", OffsetDateTime.now());
-            
-            // Analyze transaction patterns
-            analyzeTransactionPatterns(transactionList, result);
-            
-            logger.debug("Retrieved {} transactions for customerId={}", 
-                        transactionList.size(), customerId);
-            
-        } catch (Exception e) {
-            logger.error("Error retrieving transactions for customerId={}", customerId, e);
-            result.put("error", "Failed to retrieve transactions");
-            result.put("transactions", new ArrayList<>());
+            transactionList.add(txnData);
         }
         
+        result.put("transactions", transactionList);
+        result.put("totalCount", transactions.getTotalElements());
+        result.put("fromDate", fromDate);
+        result.put("toDate", OffsetDateTime.now());
+        
+        // Analyze transaction patterns
+        analyzeTransactionPatterns(customerId, transactions.getContent(), result);
+        
+        logger.debug("Retrieved {} transactions for customerId={}", 
+                    transactionList.size(), customerId);
+        
         return result;
     }
     
     /**
-     * Analyzes transaction patterns for risk signals
+     * Adds risk signals from the fetched transactions, the customer's rolling features and location history
      */
-    private void analyzeTransactionPatterns(List<Map<String, Object>> transactions, Map<String, Object> result) {
+    private void analyzeTransactionPatterns(String customerId, List<Transaction> transactions,
+                                            Map<String, Object> result) {
         if (transactions.isEmpty()) {
             return;
         }
         
-        // Check for duplicate transactions (pending vs captured)
-        Map<String, List<Map<String, Object>>> merchantGroups = new HashMap<>();
-        for (Map<String, Object> txn : transactions) {
-            String merchant = (String) txn.get("merchant");
-            merchantGroups.computeIfAbsent(merchant, k -> new ArrayList<>()).add(txn);
-        }
-        
-        for (Map.Entry<String, List<Map<String, Object>>> entry : merchantGroups.entrySet()) {
-            List<Map<String, Object>> merchantTxns = entry.getValue();
-            if (merchantTxns.size() > 1) {
-                // Check for pending and captured transactions
-                boolean hasPending = merchantTxns.stream()
-                    .anyMatch(txn -> "pending".equals(txn.get("status")));
-                boolean hasCaptured = merchantTxns.stream()
-                    .anyMatch(txn -> "captured".equals(txn.get("status")));
-                
-                if (hasPending && hasCaptured) {
-                    result.put("duplicate_transaction", true);
-                    result.put("duplicate_merchant", entry.getKey());
-                    break;
-                }
+        // Pending and captured charges for the same card, merchant and amount
+        List<DuplicateChargePair> duplicates = duplicateChargeDetector.match(transactions);
+        if (!duplicates.isEmpty()) {
+            List<Map<String, Object>> pairs = new ArrayList<>();
+            for (DuplicateChargePair pair : duplicates) {
+                Map<String, Object> pairData = new HashMap<>();
+                pairData.put("pendingTxnId", pair.pendingTxnId());
+                pairData.put("capturedTxnId", pair.capturedTxnId());
+                pairData.put("merchant", pair.merchant());
+                pairData.put("amount", pair.amount());
+                pairData.put("gapSeconds", pair.gapSeconds());
+                pairs.add(pairData);
             }
+            result.put("duplicate_transaction", true);
+            result.put("duplicate_merchant", duplicates.get(0).merchant());
+            result.put("duplicate_pairs", pairs);
         }
         
-        // Check for geo-velocity violations (simplified)
-        Set<String> cities = new HashSet<>();
-        for (Map<String, Object> txn : transactions) {
-            Map<String, Object> geo = (Map<String, Object>) txn.get("geo");
-            if (geo != null && geo.get("city") != null) {
-                cities.add((String) geo.get("city"));
+        featureStore.snapshot(customerId).ifPresent(features -> {
+            if (features.distinctDevices7d() > 2) {
+                result.put("device_change", true);
+                result.put("device_count", features.distinctDevices7d());
             }
-        }
-        
-        if (cities.size() > 3) {
-            result.put("geo_velocity_violation", true);
-            result.put("cities_visited", cities.size());
-        }
+        });
         
-        // Check for device changes
-        Set<String> devices = new HashSet<>();
-        for (Map<String, Object> txn : transactions) {
-            String deviceId = (String) txn.get("deviceId");
-            if (deviceId != null) {
-                devices.add(deviceId);
+        // Untrusted new device or never-used MCC on the latest transaction; a customer with
+        // little history has nothing to be novel against
+        Transaction latest = transactions.get(0);
+        if (transactions.size() >= MIN_HISTORY_FOR_NOVELTY && latest.getTs() != null) {
+            CustomerDeviceProfile profile = deviceTrustCache.profile(customerId);
+            Instant at = latest.getTs().toInstant();
+            if (profile.isNewDevice(latest.getDeviceId(), at, NEW_DEVICE_WINDOW)) {
+                result.put("device_change", true);
+                result.put("new_device_id", latest.getDeviceId());
+            }
+            if (profile.isNewMcc(latest.getMcc(), at)) {
+                result.put("mcc_anomaly", true);
+                result.put("new_mcc", latest.getMcc());
             }
         }
         
-        if (devices.size() > 2) {
-            result.put("device_change", true);
-            result.put("device_count", devices.size());
-        }
+        // Check the latest transaction for impossible travel
+        geoVelocityEngine.check(customerId, null)
+            .filter(check -> check.violation())
+            .ifPresent(check -> {
+                result.put("geo_velocity_violation", true);
+                result.put("travel_distance_km", Math.round(check.distanceKm()));
+                result.put("travel_speed_kmh", Math.round(check.speedKmh()));
+            });
     }
 }
@@ -0,0 +1,43 @@
+package com.aegis.agent.workflow;
+
+/**
+ * End-to-end time budget for one triage request. Every step gets
+ * min(remaining budget, per-tool timeout) so a long chain of steps
+ * cannot exceed the flow budget.
+ */
+public class FlowDeadline {
+    
+    private final long budgetMs;
+    private final long deadlineNanos;
+    
+    private FlowDeadline(long budgetMs) {
+        this.budgetMs = budgetMs;
+        this.deadlineNanos = System.nanoTime() + budgetMs * 1_000_000L;
+    }
+    
+    /**
+     * Starts a deadline that expires budgetMs from now
+     */
+    public static FlowDeadline after(long budgetMs) {
+        return new FlowDeadline(budgetMs);
+    }
+    
+    public long getBudgetMs() {
+        return budgetMs;
+    }
+    
+    public long remainingMillis() {
+        return Math.max(0, (deadlineNanos - System.nanoTime()) / 1_000_000L);
+    }
+    
+    public boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+    
+    /**
+     * Timeout for the next step: the per-tool timeout capped by what is left of the budget
+     */
+    public long stepTimeoutMillis(long toolTimeoutMs) {
+        return Math.min(remainingMillis(), toolTimeoutMs);
+    }
+}
@@ -0,0 +1,60 @@
+package com.aegis.agent.workflow;
+
+import com.aegis.dto.trace.AgentData;
+import com.aegis.dto.trace.StepPayload;
+import com.aegis.dto.trace.StepResult;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Results of the steps completed so far in a single workflow run, keyed by trace key,
+ * together with the run's deadline
+ */
+public class StepContext {
+    
+    private final Map<String, StepResult> results = new ConcurrentHashMap<>();
+    private final FlowDeadline deadline;
+    
+    StepContext(FlowDeadline deadline) {
+        this.deadline = deadline;
+    }
+    
+    /**
+     * Deadline of the workflow run this step belongs to
+     */
+    public FlowDeadline deadline() {
+        return deadline;
+    }
+    
+    void put(String traceKey, StepResult stepResult) {
+        results.put(traceKey, stepResult);
+    }
+    
+    /**
+     * Returns the full step result (status, duration, data) for a completed step
+     */
+    public StepResult result(String traceKey) {
+        return results.get(traceKey);
+    }
+    
+    /**
+     * Returns the payload of a completed step if it has the expected type, otherwise null
+     */
+    public <T extends StepPayload> T payload(String traceKey, Class<T> type) {
+        StepResult stepResult = results.get(traceKey);
+        if (stepResult == null || !type.isInstance(stepResult.data())) {
+            return null;
+        }
+        return type.cast(stepResult.data());
+    }
+    
+    /**
+     * Returns the free-form output of a completed lookup step, or an empty map if it has none
+     */
+    public Map<String, Object> values(String traceKey) {
+        AgentData data = payload(traceKey, AgentData.class);
+        return data == null ? Collections.emptyMap() : data.values();
+    }
+}
@@ -0,0 +1,11 @@
+package com.aegis.agent.workflow;
+
+import com.aegis.dto.trace.StepPayload;
+
+/**
+ * Body of a workflow step. Receives the results of the steps it depends on.
+ */
+@FunctionalInterface
+public interface StepFunction {
+    StepPayload execute(StepContext context) throws Exception;
+}
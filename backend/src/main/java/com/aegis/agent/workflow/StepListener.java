@@ -0,0 +1,28 @@
+package com.aegis.agent.workflow;
+
+import com.aegis.dto.trace.StepResult;
+
+import java.util.Map;
+
+/**
+ * Observes a workflow run as it progresses. Callbacks run on step executor threads,
+ * possibly concurrently, and must return quickly without blocking.
+ */
+public interface StepListener {
+    
+    StepListener NONE = new StepListener() {};
+    
+    default void onPlanBuilt(WorkflowPlan plan) {}
+    
+    default void onStepStarted(WorkflowPlan.Step step) {}
+    
+    /**
+     * Called once per step, including skipped steps, after its result is visible to dependents
+     */
+    default void onStepCompleted(WorkflowPlan.Step step, StepResult result) {}
+    
+    /**
+     * Called once after every step, including enrichment steps, has completed
+     */
+    default void onWorkflowCompleted(Map<String, StepResult> traceData) {}
+}
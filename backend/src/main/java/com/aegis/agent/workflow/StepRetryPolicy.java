@@ -0,0 +1,73 @@
+package com.aegis.agent.workflow;
+
+import com.aegis.metrics.StepLatencyTracker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry and hedging policy for idempotent read steps, configured under aegis.agents.retry
+ */
+@Component
+public class StepRetryPolicy {
+    
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final double multiplier;
+    private final double jitter;
+    private final long minRemainingBudgetMs;
+    private final boolean hedgeEnabled;
+    private final long hedgeMinDelayMs;
+    private final int hedgeMinSamples;
+    
+    public StepRetryPolicy(
+            @Value("${aegis.agents.retry.max-attempts:2}") int maxAttempts,
+            @Value("${aegis.agents.retry.backoff.initial:150}") long initialBackoffMs,
+            @Value("${aegis.agents.retry.backoff.multiplier:2.0}") double multiplier,
+            @Value("${aegis.agents.retry.backoff.jitter:0.5}") double jitter,
+            @Value("${aegis.agents.retry.min-remaining-budget:250}") long minRemainingBudgetMs,
+            @Value("${aegis.agents.retry.hedge.enabled:true}") boolean hedgeEnabled,
+            @Value("${aegis.agents.retry.hedge.min-delay:50}") long hedgeMinDelayMs,
+            @Value("${aegis.agents.retry.hedge.min-samples:20}") int hedgeMinSamples) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.multiplier = multiplier;
+        this.jitter = Math.max(0.0, Math.min(jitter, 1.0));
+        this.minRemainingBudgetMs = minRemainingBudgetMs;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeMinDelayMs = hedgeMinDelayMs;
+        this.hedgeMinSamples = hedgeMinSamples;
+    }
+    
+    /**
+     * Jittered exponential backoff before the attempt following the given (1-based) failed attempt
+     */
+    public long backoffMillis(int failedAttempt) {
+        double base = initialBackoffMs * Math.pow(multiplier, failedAttempt - 1);
+        double factor = 1.0 - jitter * ThreadLocalRandom.current().nextDouble();
+        return Math.round(base * factor);
+    }
+    
+    /**
+     * A retry is only worth starting if the budget covers the backoff plus a typical attempt
+     */
+    public boolean shouldRetry(int failedAttempt, FlowDeadline deadline, long backoffMs, long expectedLatencyMs) {
+        if (failedAttempt >= maxAttempts) {
+            return false;
+        }
+        long needed = backoffMs + Math.max(expectedLatencyMs, minRemainingBudgetMs);
+        return deadline.remainingMillis() >= needed;
+    }
+    
+    /**
+     * Delay after which a hedged second attempt is started, based on the step's recent p95.
+     * Returns -1 when hedging is disabled or there are too few samples to trust the estimate.
+     */
+    public long hedgeDelayMillis(StepLatencyTracker latencyTracker, String stepName) {
+        if (!hedgeEnabled || latencyTracker.sampleCount(stepName) < hedgeMinSamples) {
+            return -1;
+        }
+        return Math.max(hedgeMinDelayMs, latencyTracker.percentile(stepName, 0.95));
+    }
+}
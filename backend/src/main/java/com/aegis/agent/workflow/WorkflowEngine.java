@@ -0,0 +1,121 @@
+package com.aegis.agent.workflow;
+
+import com.aegis.dto.trace.StepResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Executes a {@link WorkflowPlan}, starting each step as soon as its dependencies
+ * have completed. Total latency is the slowest dependency chain rather than the
+ * sum of all steps.
+ */
+public class WorkflowEngine {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WorkflowEngine.class);
+    
+    /**
+     * Runs a single step. Implementations must not complete exceptionally;
+     * failures are reported as a step result with status error.
+     */
+    @FunctionalInterface
+    public interface StepRunner {
+        CompletableFuture<StepResult> run(WorkflowPlan.Step step, StepContext context);
+    }
+    
+    /**
+     * Handle on a running workflow
+     *
+     * @param outcome    completes once the outcome step and its dependencies are done; steps
+     *                   still running are recorded as pending
+     * @param completion completes once every step is done
+     */
+    public record WorkflowRun(CompletableFuture<Map<String, StepResult>> outcome,
+                              CompletableFuture<Map<String, StepResult>> completion) {}
+    
+    private final StepRunner stepRunner;
+    
+    public WorkflowEngine(StepRunner stepRunner) {
+        this.stepRunner = stepRunner;
+    }
+    
+    /**
+     * Executes all steps of the plan within the deadline and returns the trace in declaration order
+     */
+    public Map<String, StepResult> execute(WorkflowPlan plan, FlowDeadline deadline) {
+        return start(plan, deadline, StepListener.NONE).completion().join();
+    }
+    
+    /**
+     * Starts all steps of the plan without blocking the caller. Both futures of the run
+     * yield the trace in declaration order.
+     */
+    public WorkflowRun start(WorkflowPlan plan, FlowDeadline deadline, StepListener listener) {
+        notify(listener, l -> l.onPlanBuilt(plan));
+        StepContext context = new StepContext(deadline);
+        Map<String, CompletableFuture<StepResult>> futures = new LinkedHashMap<>();
+        
+        for (WorkflowPlan.Step step : plan.getSteps()) {
+            CompletableFuture<?>[] dependencies = step.dependsOn().stream()
+                .map(futures::get)
+                .toArray(CompletableFuture[]::new);
+            
+            CompletableFuture<Void> ready = dependencies.length == 0
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.allOf(dependencies);
+            
+            CompletableFuture<StepResult> future = ready
+                .thenCompose(ignored -> runStep(step, context, listener))
+                .thenApply(stepResult -> {
+                    context.put(step.traceKey(), stepResult);
+                    notify(listener, l -> l.onStepCompleted(step, stepResult));
+                    return stepResult;
+                });
+            futures.put(step.traceKey(), future);
+        }
+        
+        CompletableFuture<?>[] outcomePath = plan.getSteps().stream()
+            .filter(plan::isOnOutcomePath)
+            .map(step -> futures.get(step.traceKey()))
+            .toArray(CompletableFuture[]::new);
+        
+        CompletableFuture<Map<String, StepResult>> outcome = CompletableFuture.allOf(outcomePath)
+            .thenApply(ignored -> snapshot(futures));
+        CompletableFuture<Map<String, StepResult>> completion = CompletableFuture
+            .allOf(futures.values().toArray(CompletableFuture[]::new))
+            .thenApply(ignored -> {
+                Map<String, StepResult> traceData = snapshot(futures);
+                notify(listener, l -> l.onWorkflowCompleted(traceData));
+                return traceData;
+            });
+        return new WorkflowRun(outcome, completion);
+    }
+    
+    private static Map<String, StepResult> snapshot(Map<String, CompletableFuture<StepResult>> futures) {
+        Map<String, StepResult> traceData = new LinkedHashMap<>();
+        futures.forEach((traceKey, future) -> traceData.put(traceKey, future.getNow(StepResult.pending())));
+        return traceData;
+    }
+    
+    private CompletableFuture<StepResult> runStep(WorkflowPlan.Step step, StepContext context, StepListener listener) {
+        if (!step.shouldRun(context)) {
+            return CompletableFuture.completedFuture(StepResult.skipped(step.skipReason()));
+        }
+        notify(listener, l -> l.onStepStarted(step));
+        return stepRunner.run(step, context);
+    }
+    
+    /**
+     * A failing listener must not fail the workflow
+     */
+    private static void notify(StepListener listener, Consumer<StepListener> callback) {
+        try {
+            callback.accept(listener);
+        } catch (RuntimeException e) {
+            logger.warn("Step listener failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.aegis.agent.workflow;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Declarative description of a triage workflow as a DAG of steps.
+ * Steps only wait for the steps they declare as inputs, so independent
+ * lookups (profile, transactions, risk, KB) run concurrently.
+ * The last step is the plan's outcome (the proposed action); steps it does
+ * not transitively depend on are enrichment and may finish after it.
+ */
+public class WorkflowPlan {
+    
+    private final String name;
+    private final List<Step> steps;
+    private final Set<String> outcomePath;
+    
+    private WorkflowPlan(String name, List<Step> steps) {
+        this.name = name;
+        this.steps = List.copyOf(steps);
+        this.outcomePath = Collections.unmodifiableSet(outcomePath(this.steps));
+    }
+    
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Steps in declaration order, which is also a valid topological order
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+    
+    /**
+     * Whether the step is the outcome or one of its transitive dependencies
+     */
+    public boolean isOnOutcomePath(Step step) {
+        return outcomePath.contains(step.traceKey());
+    }
+    
+    private static Set<String> outcomePath(List<Step> steps) {
+        Set<String> path = new HashSet<>();
+        if (steps.isEmpty()) {
+            return path;
+        }
+        Map<String, Step> byKey = new HashMap<>();
+        steps.forEach(step -> byKey.put(step.traceKey(), step));
+        
+        Deque<String> pending = new ArrayDeque<>();
+        pending.push(steps.get(steps.size() - 1).traceKey());
+        while (!pending.isEmpty()) {
+            String traceKey = pending.pop();
+            if (path.add(traceKey)) {
+                byKey.get(traceKey).dependsOn().forEach(pending::push);
+            }
+        }
+        return path;
+    }
+    
+    /**
+     * A single node of the plan
+     *
+     * @param traceKey   key of the step result in the trace, e.g. step_3_riskSignals
+     * @param stepName   tool name used for metrics and circuit breaking, e.g. riskSignals
+     * @param dependsOn  trace keys of the steps whose results this step reads
+     * @param condition  when false at run time the step is recorded as skipped
+     */
+    public record Step(String traceKey, String stepName, StepFunction function, List<String> dependsOn,
+                       Predicate<StepContext> condition, String skipReason) {
+        
+        public boolean shouldRun(StepContext context) {
+            return condition == null || condition.test(context);
+        }
+    }
+    
+    public static class Builder {
+        
+        private final String name;
+        private final List<Step> steps = new ArrayList<>();
+        private final Set<String> declared = new HashSet<>();
+        
+        private Builder(String name) {
+            this.name = name;
+        }
+        
+        /**
+         * Adds a step that runs once all of its dependencies have completed
+         */
+        public Builder step(String traceKey, String stepName, StepFunction function, String... dependsOn) {
+            return add(new Step(traceKey, stepName, function, List.of(dependsOn), null, null));
+        }
+        
+        /**
+         * Adds a step that is skipped when the condition does not hold for its dependencies' results
+         */
+        public Builder stepIf(String traceKey, String stepName, Predicate<StepContext> condition, String skipReason,
+                              StepFunction function, String... dependsOn) {
+            return add(new Step(traceKey, stepName, function, List.of(dependsOn), condition, skipReason));
+        }
+        
+        private Builder add(Step step) {
+            if (!declared.add(step.traceKey())) {
+                throw new IllegalArgumentException("Duplicate step " + step.traceKey() + " in workflow " + name);
+            }
+            // Dependencies must be declared first, which rules out cycles
+            for (String dependency : step.dependsOn()) {
+                if (!declared.contains(dependency) || dependency.equals(step.traceKey())) {
+                    throw new IllegalArgumentException("Step " + step.traceKey() + " depends on undeclared step "
+                        + dependency + " in workflow " + name);
+                }
+            }
+            steps.add(step);
+            return this;
+        }
+        
+        public WorkflowPlan build() {
+            return new WorkflowPlan(name, steps);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.aegis.config;
+
+import com.aegis.metrics.InstrumentedExecutorService;
+import com.aegis.metrics.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors used for orchestrator steps, batch triage and SSE delivery. None of this
+ * work may run on the common ForkJoinPool, which is sized for CPU-bound tasks.
+ */
+@Configuration
+public class AgentExecutorConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AgentExecutorConfig.class);
+    
+    /**
+     * Step executor, either virtual-thread-per-task or a bounded platform pool
+     */
+    @Bean(name = "agentStepExecutor", destroyMethod = "shutdown")
+    public InstrumentedExecutorService agentStepExecutor(
+            @Value("${aegis.agents.executor.mode:virtual}") String mode,
+            @Value("${aegis.agents.executor.platform.pool-size:64}") int poolSize,
+            @Value("${aegis.agents.executor.platform.queue-capacity:1000}") int queueCapacity,
+            MetricsService metricsService) {
+        
+        ExecutorService delegate;
+        switch (mode.toLowerCase()) {
+            case "virtual":
+                delegate = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("agent-step-", 0).factory());
+                break;
+            case "platform":
+                // Bounded queue; a full queue fails the step into its fallback instead of piling up
+                delegate = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), namedThreadFactory("agent-step-"),
+                    new ThreadPoolExecutor.AbortPolicy());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown aegis.agents.executor.mode: " + mode);
+        }
+        
+        logger.info("Agent step executor mode={}, poolSize={}, queueCapacity={}", 
+                   mode, "virtual".equalsIgnoreCase(mode) ? "unbounded" : poolSize, queueCapacity);
+        
+        InstrumentedExecutorService executor = new InstrumentedExecutorService(delegate);
+        metricsService.registerExecutorGauges("agent_step", executor);
+        return executor;
+    }
+    
+    /**
+     * Executor for batch triage items. Each item blocks while its workflow runs on the
+     * step executor, so items get their own virtual threads and the batch service bounds
+     * how many run at once.
+     */
+    @Bean(name = "triageBatchExecutor", destroyMethod = "shutdown")
+    public InstrumentedExecutorService triageBatchExecutor(MetricsService metricsService) {
+        InstrumentedExecutorService executor = new InstrumentedExecutorService(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("triage-batch-", 0).factory()));
+        metricsService.registerExecutorGauges("triage_batch", executor);
+        return executor;
+    }
+    
+    /**
+     * Executor that writes buffered SSE events to clients. Writes are short, so a small
+     * platform pool serves many concurrent streams.
+     */
+    @Bean(name = "sseEmitterExecutor", destroyMethod = "shutdown")
+    public InstrumentedExecutorService sseEmitterExecutor(
+            @Value("${aegis.streaming.emitter.pool-size:4}") int poolSize,
+            @Value("${aegis.streaming.emitter.queue-capacity:10000}") int queueCapacity,
+            MetricsService metricsService) {
+        InstrumentedExecutorService executor = new InstrumentedExecutorService(
+            new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreadFactory("sse-emitter-"),
+                new ThreadPoolExecutor.AbortPolicy()));
+        metricsService.registerExecutorGauges("sse_emitter", executor);
+        return executor;
+    }
+    
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.aegis.controller;
+
+import com.aegis.risk.graph.FraudRingDetector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/risk/rings")
+public class FraudRingController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FraudRingController.class);
+    
+    @Autowired
+    private FraudRingDetector fraudRingDetector;
+    
+    /**
+     * GET /api/risk/rings/summary - Size of the last graph build and its high fan-out nodes
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<Map<String, Object>> getSummary() {
+        return ResponseEntity.ok(fraudRingDetector.summary());
+    }
+    
+    /**
+     * POST /api/risk/rings/rebuild - Rebuild the fraud ring graph now
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        try {
+            int flagged = fraudRingDetector.rebuild();
+            logger.info("Fraud ring graph rebuilt on request: {} customers flagged", flagged);
+            return ResponseEntity.ok(Map.of("flaggedCustomers", flagged, "timestamp", java.time.OffsetDateTime.now()));
+        
+        } catch (Exception e) {
+            logger.error("Fraud ring graph rebuild failed", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "Graph not rebuilt: " + e.getMessage()));
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package com.aegis.controller;
 
 import com.aegis.agent.KnowledgeBaseAgent;
+import com.aegis.kb.RenderedDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -15,6 +21,9 @@ import java.util.Map;
 public class KnowledgeBaseController {
     
     private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseController.class);
+    private static final byte[] DOCUMENT_PREFIX = "{\"document\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TIMESTAMP_PREFIX = ",\"timestamp\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SUFFIX = "\"}".getBytes(StandardCharsets.UTF_8);
     
     @Autowired
     private KnowledgeBaseAgent knowledgeBaseAgent;
@@ -47,30 +56,65 @@ public class KnowledgeBaseController {
     }
     
     /**
-     * GET /api/kb/document/{id} - Get specific knowledge base document
+     * GET /api/kb/document/{id} - Get specific knowledge base document. The document JSON is
+     * pre-rendered with the KB snapshot and copied into the response as is; a matching
+     * If-None-Match gets 304. The ETag is weak because the response timestamp varies.
      */
     @GetMapping("/document/{id}")
-    public ResponseEntity<Map<String, Object>> getDocument(@PathVariable String id) {
+    public ResponseEntity<?> getDocument(@PathVariable String id,
+                                         @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         logger.info("Get knowledge base document request: id={}", id);
         
         try {
-            Map<String, Object> document = knowledgeBaseAgent.getDocumentById(id);
+            RenderedDocument document = knowledgeBaseAgent.getRenderedDocument(id);
             
             if (document == null) {
                 return ResponseEntity.notFound().build();
             }
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("document", document);
-            response.put("timestamp", java.time.OffsetDateTime.now());
+            String etag = "W/" + document.etag();
+            if (matches(ifNoneMatch, document.etag())) {
+                logger.info("Knowledge base document not modified: id={}", id);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            
+            byte[] timestamp = OffsetDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)
+                .getBytes(StandardCharsets.US_ASCII);
+            byte[] json = document.json();
+            byte[] body = new byte[DOCUMENT_PREFIX.length + json.length + TIMESTAMP_PREFIX.length
+                + timestamp.length + SUFFIX.length];
+            int offset = 0;
+            for (byte[] part : new byte[][] {DOCUMENT_PREFIX, json, TIMESTAMP_PREFIX, timestamp, SUFFIX}) {
+                System.arraycopy(part, 0, body, offset, part.length);
+                offset += part.length;
+            }
             
             logger.info("Retrieved knowledge base document: id={}", id);
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .body(body);
             
         } catch (Exception e) {
             logger.error("Error retrieving knowledge base document: {}", id, e);
             return ResponseEntity.internalServerError().body(Map.of("error", "Failed to retrieve document"));
         }
     }
+    
+    /**
+     * Weak comparison against an If-None-Match list, as RFC 9110 requires for GET
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,49 @@
+package com.aegis.controller;
+
+import com.aegis.risk.rules.RiskRuleEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/risk/rules")
+public class RiskRulesController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RiskRulesController.class);
+    
+    @Autowired
+    private RiskRuleEngine riskRuleEngine;
+    
+    /**
+     * GET /api/risk/rules/stats - Per-rule hit counts and evaluation time
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getRuleStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("rules", riskRuleEngine.ruleStats());
+        response.put("timestamp", java.time.OffsetDateTime.now());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * POST /api/risk/rules/reload - Recompile the risk rules without a restart
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reloadRules() {
+        try {
+            int ruleCount = riskRuleEngine.reload();
+            logger.info("Risk rules reloaded on request: {} active rules", ruleCount);
+            return ResponseEntity.ok(Map.of("activeRules", ruleCount, "timestamp", java.time.OffsetDateTime.now()));
+        
+        } catch (IOException e) {
+            logger.error("Risk rules reload failed", e);
+            return ResponseEntity.unprocessableEntity().body(Map.of("error", "Rules not reloaded: " + e.getMessage()));
+        }
+    }
+}
@@ -1,24 +1,36 @@
 package com.aegis.controller;
 
 import com.aegis.agent.AgentOrchestrator;
+import com.aegis.dto.BatchTriageRequest;
 import com.aegis.dto.TriageRequest;
 import com.aegis.dto.TriageResponse;
+import com.aegis.dto.trace.ActionType;
+import com.aegis.dto.trace.RiskLevel;
+import com.aegis.metrics.InstrumentedExecutorService;
 import com.aegis.metrics.MetricsService;
+import com.aegis.service.BatchTriageService;
 import com.aegis.service.PiiRedactionService;
+import com.aegis.service.TraceStore;
+import com.aegis.service.TriageEventStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/triage")
@@ -35,6 +47,25 @@ public class TriageController {
     @Autowired
     private MetricsService metricsService;
     
+    @Autowired
+    private BatchTriageService batchTriageService;
+    
+    @Autowired
+    private TraceStore traceStore;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    @Qualifier("sseEmitterExecutor")
+    private InstrumentedExecutorService sseEmitterExecutor;
+    
+    @Value("${aegis.triage.batch.timeout:600000}")
+    private long batchTimeoutMs;
+    
+    @Value("${aegis.streaming.buffer-capacity:64}")
+    private int streamBufferCapacity;
+    
     // Simple rate limiting (in production, use Redis)
     private final Map<String, Long> requestTimes = new java.util.concurrent.ConcurrentHashMap<>();
     private final int RATE_LIMIT_WINDOW_MS = 1000; // 1 second
@@ -66,8 +97,7 @@ public class TriageController {
                    requestId, maskedCustomerId, request.getSuspectTxnId());
         
         try {
-            TriageResponse response = agentOrchestrator.executeTriage(request);
-            response.setRequestId(requestId);
+            TriageResponse response = agentOrchestrator.executeTriage(request, requestId);
             
             logger.info("Triage completed: requestId={}, riskScore={}, action={}", 
                        requestId, response.getRiskScore(), response.getRecommendedAction());
@@ -78,8 +108,8 @@ public class TriageController {
             logger.error("Error executing triage for requestId={}", requestId, e);
             
             TriageResponse errorResponse = new TriageResponse(requestId, request.getCustomerId(), request.getSuspectTxnId());
-            errorResponse.setRiskScore("medium");
-            errorResponse.setRecommendedAction("contact_customer");
+            errorResponse.setRiskScore(RiskLevel.MEDIUM);
+            errorResponse.setRecommendedAction(ActionType.CONTACT_CUSTOMER);
             errorResponse.setReasons(java.util.Arrays.asList("system_error", "manual_review_required"));
             errorResponse.setFallbackUsed(true);
             
@@ -87,6 +117,44 @@ public class TriageController {
         }
     }
     
+    /**
+     * POST /api/triage/batch - Execute triage for many alerts, streaming one NDJSON line per
+     * alert as it completes. Lines arrive in completion order; use "index" to correlate.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> executeTriageBatch(@Valid @RequestBody BatchTriageRequest batch) {
+        String batchId = UUID.randomUUID().toString();
+        List<TriageRequest> requests = batch.getRequests();
+        
+        if (requests.size() > batchTriageService.getMaxItems()) {
+            Map<String, Object> errorResponse = new java.util.HashMap<>();
+            errorResponse.put("error", "Batch too large");
+            errorResponse.put("maxItems", batchTriageService.getMaxItems());
+            errorResponse.put("batchId", batchId);
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+        }
+        
+        logger.info("Batch triage request received: batchId={}, items={}", batchId, requests.size());
+        
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeoutMs);
+        batchTriageService.executeBatch(requests, result -> {
+            try {
+                emitter.send(objectMapper.writeValueAsString(result) + "\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((ignored, error) -> {
+            if (error == null) {
+                emitter.complete();
+            } else {
+                logger.warn("Batch triage aborted: batchId={}, reason={}", batchId, error.getMessage());
+                emitter.completeWithError(error);
+            }
+        });
+        
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+    
     /**
      * Check if client is rate limited
      */
@@ -103,6 +171,17 @@ public class TriageController {
         return true;
     }
     
+    /**
+     * GET /api/triage/{requestId}/trace - Full step trace of a recent triage run, including
+     * enrichment steps that finished after the response was sent
+     */
+    @GetMapping("/{requestId}/trace")
+    public ResponseEntity<?> getTrace(@PathVariable String requestId) {
+        return traceStore.get(requestId)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
     /**
      * POST /api/triage/stream - Execute fraud triage workflow with SSE streaming
      */
@@ -115,76 +194,13 @@ public class TriageController {
                    requestId, maskedCustomerId);
         
         SseEmitter emitter = new SseEmitter(30000L); // 30 second timeout
+        TriageEventStream events = new TriageEventStream(requestId, emitter, sseEmitterExecutor, 
+                                                         streamBufferCapacity, metricsService);
         
-        CompletableFuture.runAsync(() -> {
-            try {
-                // Send plan built event
-                sendSseEvent(emitter, "plan_built", Map.of(
-                    "requestId", requestId,
-                    "steps", java.util.Arrays.asList("getProfile", "getRecentTransactions", "riskSignals", "kbLookup", "decide", "proposeAction")
-                ));
-                
-                // Execute triage workflow
-                TriageResponse response = agentOrchestrator.executeTriage(request);
-                response.setRequestId(requestId);
-                
-                // Send tool update events
-                Map<String, Object> traceData = response.getTraceData();
-                if (traceData != null) {
-                    for (Map.Entry<String, Object> entry : traceData.entrySet()) {
-                        if (entry.getKey().startsWith("step_")) {
-                            sendSseEvent(emitter, "tool_update", Map.of(
-                                "requestId", requestId,
-                                "step", entry.getKey(),
-                                "result", entry.getValue()
-                            ));
-                        }
-                    }
-                }
-                
-                // Send fallback event if used
-                if (response.isFallbackUsed()) {
-                    sendSseEvent(emitter, "fallback_triggered", Map.of(
-                        "requestId", requestId,
-                        "reason", "Service timeout or error"
-                    ));
-                }
-                
-                // Send final decision
-                sendSseEvent(emitter, "decision_finalized", Map.of(
-                    "requestId", requestId,
-                    "riskScore", response.getRiskScore(),
-                    "recommendedAction", response.getRecommendedAction(),
-                    "reasons", response.getReasons(),
-                    "requiresOTP", response.isRequiresOTP()
-                ));
-                
-                emitter.complete();
-                
-            } catch (Exception e) {
-                logger.error("Error in streaming triage for requestId={}", requestId, e);
-                try {
-                    sendSseEvent(emitter, "error", Map.of(
-                        "requestId", requestId,
-                        "error", e.getMessage()
-                    ));
-                    emitter.completeWithError(e);
-                } catch (IOException ioException) {
-                    logger.error("Error sending error event", ioException);
-                }
-            }
-        });
+        // Steps publish tool events as they finish; nothing blocks waiting for the whole flow
+        agentOrchestrator.executeTriageAsync(request, requestId, events)
+            .thenAccept(events::complete);
         
         return emitter;
     }
-    
-    /**
-     * Sends an SSE event
-     */
-    private void sendSseEvent(SseEmitter emitter, String eventName, Map<String, Object> data) throws IOException {
-        SseEmitter.SseEventBuilder event = SseEmitter.event()
-            .name(eventName)
-            .data(data);
-        emitter.send(event);
-    }
 }
@@ -0,0 +1,29 @@
+package com.aegis.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class BatchTriageRequest {
+    
+    @NotEmpty(message = "At least one triage request is required")
+    @Valid
+    private List<TriageRequest> requests;
+    
+    // Constructors
+    public BatchTriageRequest() {}
+    
+    public BatchTriageRequest(List<TriageRequest> requests) {
+        this.requests = requests;
+    }
+    
+    // Getters and Setters
+    public List<TriageRequest> getRequests() {
+        return requests;
+    }
+    
+    public void setRequests(List<TriageRequest> requests) {
+        this.requests = requests;
+    }
+}
@@ -0,0 +1,63 @@
+package com.aegis.dto;
+
+/**
+ * One line of a batch triage response; index is the item's position in the request
+ */
+public class BatchTriageResult {
+    
+    private int index;
+    private String status; // ok, error
+    private TriageResponse response;
+    private String error;
+    
+    // Constructors
+    public BatchTriageResult() {}
+    
+    public BatchTriageResult(int index, String status, TriageResponse response, String error) {
+        this.index = index;
+        this.status = status;
+        this.response = response;
+        this.error = error;
+    }
+    
+    public static BatchTriageResult ok(int index, TriageResponse response) {
+        return new BatchTriageResult(index, "ok", response, null);
+    }
+    
+    public static BatchTriageResult error(int index, String error) {
+        return new BatchTriageResult(index, "error", null, error);
+    }
+    
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public TriageResponse getResponse() {
+        return response;
+    }
+    
+    public void setResponse(TriageResponse response) {
+        this.response = response;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
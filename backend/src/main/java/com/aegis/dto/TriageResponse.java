@@ -1,5 +1,9 @@
 package com.aegis.dto;
 
+import com.aegis.dto.trace.ActionType;
+import com.aegis.dto.trace.RiskLevel;
+import com.aegis.dto.trace.StepResult;
+
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
@@ -9,14 +13,15 @@ public class TriageResponse {
     private String requestId;
     private String customerId;
     private String suspectTxnId;
-    private String riskScore; // low, medium, high
-    private String recommendedAction;
+    private RiskLevel riskScore;
+    private ActionType recommendedAction;
     private List<String> reasons;
     private boolean requiresOTP;
     private boolean fallbackUsed;
     private boolean piiDetected;
     private List<String> traceSteps;
-    private Map<String, Object> traceData;
+    private Map<String, StepResult> traceData;
+    private boolean traceComplete; // false while enrichment steps are still running
     private OffsetDateTime completedAt;
     
     // Constructors
@@ -53,19 +58,19 @@ public class TriageResponse {
         this.suspectTxnId = suspectTxnId;
     }
     
-    public String getRiskScore() {
+    public RiskLevel getRiskScore() {
         return riskScore;
     }
     
-    public void setRiskScore(String riskScore) {
+    public void setRiskScore(RiskLevel riskScore) {
         this.riskScore = riskScore;
     }
     
-    public String getRecommendedAction() {
+    public ActionType getRecommendedAction() {
         return recommendedAction;
     }
     
-    public void setRecommendedAction(String recommendedAction) {
+    public void setRecommendedAction(ActionType recommendedAction) {
         this.recommendedAction = recommendedAction;
     }
     
@@ -109,14 +114,22 @@ public class TriageResponse {
         this.traceSteps = traceSteps;
     }
 
-    public Map<String, Object> getTraceData() {
+    public Map<String, StepResult> getTraceData() {
         return traceData;
     }
     
-    public void setTraceData(Map<String, Object> traceData) {
+    public void setTraceData(Map<String, StepResult> traceData) {
         this.traceData = traceData;
     }
     
+    public boolean isTraceComplete() {
+        return traceComplete;
+    }
+    
+    public void setTraceComplete(boolean traceComplete) {
+        this.traceComplete = traceComplete;
+    }
+    
     public OffsetDateTime getCompletedAt() {
         return completedAt;
     }
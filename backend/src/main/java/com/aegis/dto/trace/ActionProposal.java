@@ -0,0 +1,36 @@
+package com.aegis.dto.trace;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/**
+ * Output of the final action step
+ *
+ * @param details workflow-specific extras shown to the agent (e.g. finalStatus hints, timings),
+ *                serialized as top-level fields next to the fixed ones
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ActionProposal(ActionType action, boolean requiresOTP, String message, String reasonCode, 
+                             String finalStatus, @JsonIgnore Map<String, Object> details) implements StepPayload {
+    
+    public ActionProposal {
+        details = details == null || details.isEmpty() ? null : Map.copyOf(details);
+    }
+    
+    public static ActionProposal of(ActionType action, boolean requiresOTP) {
+        return new ActionProposal(action, requiresOTP, null, null, null, null);
+    }
+    
+    @JsonAnyGetter
+    Map<String, Object> detailFields() {
+        return details != null ? details : Map.of();
+    }
+    
+    @Override
+    public boolean fallbackUsed() {
+        return false;
+    }
+}
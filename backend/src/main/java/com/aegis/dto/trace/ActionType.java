@@ -0,0 +1,29 @@
+package com.aegis.dto.trace;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Action recommended at the end of a triage workflow
+ */
+public enum ActionType {
+    FREEZE_CARD("freeze_card"),
+    OPEN_DISPUTE("open_dispute"),
+    CONTACT_CUSTOMER("contact_customer"),
+    EXPLAIN_ONLY("explain_only"),
+    NO_ACTION("no_action"),
+    ESCALATE("escalate"),
+    PROVIDE_GUIDANCE("provide_guidance"),
+    MERCHANT_DISAMBIGUATED("merchant_disambiguated"),
+    NO_ACTION_REQUIRED("no_action_required");
+    
+    private final String code;
+    
+    ActionType(String code) {
+        this.code = code;
+    }
+    
+    @JsonValue
+    public String code() {
+        return code;
+    }
+}
@@ -0,0 +1,26 @@
+package com.aegis.dto.trace;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Free-form output of a lookup agent (profile, transactions, KB, merchant analysis).
+ * Serialized as the underlying map.
+ */
+public record AgentData(@JsonValue Map<String, Object> values) implements StepPayload {
+    
+    public static AgentData of(Map<String, Object> values) {
+        return new AgentData(values == null ? Collections.emptyMap() : values);
+    }
+    
+    public Object get(String key) {
+        return values.get(key);
+    }
+    
+    @Override
+    public boolean fallbackUsed() {
+        return Boolean.TRUE.equals(values.get("fallbackUsed"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.aegis.dto.trace;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Output of the decide step. Each set flag is serialized as a top-level
+ * {@code true} field (e.g. {@code "proposeFreeze": true}); unset flags are omitted.
+ */
+public record Decision(RiskLevel riskScore, List<String> reasons, boolean fallbackUsed, 
+                       @JsonIgnore Set<Decision.Flag> flags) implements StepPayload {
+    
+    public enum Flag {
+        RISK_DOWNGRADED("riskDowngraded"),
+        PROPOSE_FREEZE("proposeFreeze"),
+        ESCALATE_TO_LEAD("escalateToLead"),
+        OPEN_CASE("openCase");
+        
+        private final String code;
+        
+        Flag(String code) {
+            this.code = code;
+        }
+        
+        @JsonValue
+        public String code() {
+            return code;
+        }
+    }
+    
+    public Decision {
+        reasons = List.copyOf(reasons);
+        flags = flags.isEmpty() ? Set.of() : Set.copyOf(flags);
+    }
+    
+    public static Decision of(RiskLevel riskScore, List<String> reasons, Flag... flags) {
+        Set<Flag> flagSet = flags.length == 0 ? Set.of() : EnumSet.of(flags[0], flags);
+        return new Decision(riskScore, reasons, false, flagSet);
+    }
+    
+    /**
+     * Adopts the risk step's score and reasons unchanged
+     */
+    public static Decision from(RiskAssessment risk, Flag... flags) {
+        Set<Flag> flagSet = flags.length == 0 ? Set.of() : EnumSet.of(flags[0], flags);
+        return new Decision(risk.riskScore(), risk.reasons(), risk.fallbackUsed(), flagSet);
+    }
+    
+    public boolean hasFlag(Flag flag) {
+        return flags.contains(flag);
+    }
+    
+    @JsonAnyGetter
+    Map<String, Object> flagFields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (Flag flag : Flag.values()) {
+            if (flags.contains(flag)) {
+                fields.put(flag.code(), true);
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,38 @@
+package com.aegis.dto.trace;
+
+import java.util.List;
+
+/**
+ * Output of the riskSignals step
+ *
+ * @param analysisTime epoch millis at which the transaction was scored
+ */
+public record RiskAssessment(RiskLevel riskScore, List<String> reasons, double confidence, 
+                             boolean fallbackUsed, long analysisTime) implements StepPayload {
+    
+    public RiskAssessment {
+        reasons = List.copyOf(reasons);
+    }
+    
+    public RiskAssessment(RiskLevel riskScore, List<String> reasons, double confidence, boolean fallbackUsed) {
+        this(riskScore, reasons, confidence, fallbackUsed, System.currentTimeMillis());
+    }
+    
+    public static RiskAssessment of(RiskLevel riskScore, double confidence, String... reasons) {
+        return new RiskAssessment(riskScore, List.of(reasons), confidence, false);
+    }
+    
+    /**
+     * Rule-based result used when the risk service is unavailable; never above medium
+     */
+    public static RiskAssessment fallback() {
+        return new RiskAssessment(RiskLevel.MEDIUM, List.of("risk_unavailable", "rule_based_fallback"), 0.6, true);
+    }
+    
+    /**
+     * The same outcome stamped with a new analysis time
+     */
+    public RiskAssessment analyzedAt(long analysisTime) {
+        return new RiskAssessment(riskScore, reasons, confidence, fallbackUsed, analysisTime);
+    }
+}
@@ -0,0 +1,32 @@
+package com.aegis.dto.trace;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Risk score assigned by the risk step and the final decision
+ */
+public enum RiskLevel {
+    LOW("low"),
+    MEDIUM("medium"),
+    HIGH("high");
+    
+    private final String code;
+    
+    RiskLevel(String code) {
+        this.code = code;
+    }
+    
+    @JsonValue
+    public String code() {
+        return code;
+    }
+    
+    public static RiskLevel fromCode(String code) {
+        for (RiskLevel level : values()) {
+            if (level.code.equalsIgnoreCase(code)) {
+                return level;
+            }
+        }
+        throw new IllegalArgumentException("Unknown risk level: " + code);
+    }
+}
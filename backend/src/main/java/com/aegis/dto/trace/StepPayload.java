@@ -0,0 +1,13 @@
+package com.aegis.dto.trace;
+
+/**
+ * Data produced by a workflow step. Decision-path steps have their own record
+ * types; lookups that return free-form agent output use {@link AgentData}.
+ */
+public sealed interface StepPayload permits RiskAssessment, Decision, ActionProposal, AgentData {
+    
+    /**
+     * Whether the payload came from a fallback rather than the real tool
+     */
+    boolean fallbackUsed();
+}
@@ -0,0 +1,31 @@
+package com.aegis.dto.trace;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one workflow step as recorded in the trace
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StepResult(StepStatus status, Long duration, String error, String reason, StepPayload data) {
+    
+    private static final StepResult PENDING = new StepResult(StepStatus.PENDING, null, null, null, null);
+    
+    public static StepResult ok(long duration, StepPayload data) {
+        return new StepResult(StepStatus.OK, duration, null, null, data);
+    }
+    
+    public static StepResult error(long duration, String error, StepPayload fallback) {
+        return new StepResult(StepStatus.ERROR, duration, error, null, fallback);
+    }
+    
+    public static StepResult skipped(String reason) {
+        return new StepResult(StepStatus.SKIPPED, null, null, reason, null);
+    }
+    
+    /**
+     * Placeholder for an enrichment step that was still running when the response was sent
+     */
+    public static StepResult pending() {
+        return PENDING;
+    }
+}
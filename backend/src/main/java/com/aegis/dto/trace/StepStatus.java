@@ -0,0 +1,24 @@
+package com.aegis.dto.trace;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Outcome of a workflow step
+ */
+public enum StepStatus {
+    OK("ok"),
+    ERROR("error"),
+    SKIPPED("skipped"),
+    PENDING("pending");
+    
+    private final String code;
+    
+    StepStatus(String code) {
+        this.code = code;
+    }
+    
+    @JsonValue
+    public String code() {
+        return code;
+    }
+}
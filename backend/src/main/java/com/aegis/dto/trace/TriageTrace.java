@@ -0,0 +1,13 @@
+package com.aegis.dto.trace;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Stored trace of a triage run, fetched by the UI after an early response
+ *
+ * @param complete false while enrichment steps are still pending
+ */
+public record TriageTrace(String requestId, boolean complete, Map<String, StepResult> traceData, 
+                          OffsetDateTime updatedAt) {
+}
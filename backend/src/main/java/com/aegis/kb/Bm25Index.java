@@ -0,0 +1,184 @@
+package com.aegis.kb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Immutable BM25 index over knowledge base chunks. Built once: every chunk is analyzed,
+ * postings are stored as parallel primitive arrays sorted by chunk, and the per-chunk
+ * length normalisation and per-term IDF are precomputed. A query walks only the postings
+ * of its own terms, document at a time, and keeps the best k in a bounded min-heap, so its
+ * cost grows with the matching postings rather than with the corpus.
+ */
+public final class Bm25Index {
+    
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Title and anchor terms count this many times a body occurrence
+    private static final int HEADING_WEIGHT = 2;
+    
+    private record Candidate(int chunk, double score) {}
+    
+    private final List<KbChunk> chunks;
+    private final Map<String, Integer> termIds;
+    private final int[][] postingChunks;
+    private final int[][] postingFrequencies;
+    private final double[] idf;
+    private final double[] lengthNorms;
+    
+    private Bm25Index(List<KbChunk> chunks, Map<String, Integer> termIds, int[][] postingChunks,
+                      int[][] postingFrequencies, double[] idf, double[] lengthNorms) {
+        this.chunks = chunks;
+        this.termIds = termIds;
+        this.postingChunks = postingChunks;
+        this.postingFrequencies = postingFrequencies;
+        this.idf = idf;
+        this.lengthNorms = lengthNorms;
+    }
+    
+    public static Bm25Index build(List<KbChunk> chunks) {
+        Map<String, Integer> termIds = new HashMap<>();
+        List<int[]> chunkLists = new ArrayList<>();
+        List<int[]> frequencyLists = new ArrayList<>();
+        int[] postingCounts = new int[16];
+        int[] lengths = new int[chunks.size()];
+        long totalLength = 0;
+        
+        for (int c = 0; c < chunks.size(); c++) {
+            KbChunk chunk = chunks.get(c);
+            Map<Integer, Integer> frequencies = new HashMap<>();
+            int length = 0;
+            for (String term : TextAnalyzer.terms(chunk.title() + " " + chunk.anchor())) {
+                frequencies.merge(termId(termIds, term), HEADING_WEIGHT, Integer::sum);
+                length += HEADING_WEIGHT;
+            }
+            for (String term : TextAnalyzer.terms(chunk.content())) {
+                frequencies.merge(termId(termIds, term), 1, Integer::sum);
+                length++;
+            }
+            lengths[c] = length;
+            totalLength += length;
+            
+            while (chunkLists.size() < termIds.size()) {
+                chunkLists.add(new int[4]);
+                frequencyLists.add(new int[4]);
+            }
+            if (termIds.size() > postingCounts.length) {
+                postingCounts = Arrays.copyOf(postingCounts, Math.max(termIds.size(), postingCounts.length * 2));
+            }
+            for (Map.Entry<Integer, Integer> entry : frequencies.entrySet()) {
+                int term = entry.getKey();
+                int count = postingCounts[term];
+                if (count == chunkLists.get(term).length) {
+                    chunkLists.set(term, Arrays.copyOf(chunkLists.get(term), count * 2));
+                    frequencyLists.set(term, Arrays.copyOf(frequencyLists.get(term), count * 2));
+                }
+                // Chunks are visited in order, so every postings list stays sorted
+                chunkLists.get(term)[count] = c;
+                frequencyLists.get(term)[count] = entry.getValue();
+                postingCounts[term] = count + 1;
+            }
+        }
+        
+        int termCount = chunkLists.size();
+        int[][] postingChunks = new int[termCount][];
+        int[][] postingFrequencies = new int[termCount][];
+        double[] idf = new double[termCount];
+        int n = chunks.size();
+        for (int t = 0; t < termCount; t++) {
+            postingChunks[t] = Arrays.copyOf(chunkLists.get(t), postingCounts[t]);
+            postingFrequencies[t] = Arrays.copyOf(frequencyLists.get(t), postingCounts[t]);
+            int df = postingCounts[t];
+            idf[t] = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+        }
+        
+        double avgLength = n > 0 ? (double) totalLength / n : 0;
+        double[] lengthNorms = new double[n];
+        for (int c = 0; c < n; c++) {
+            lengthNorms[c] = K1 * (1 - B + B * (avgLength > 0 ? lengths[c] / avgLength : 0));
+        }
+        return new Bm25Index(List.copyOf(chunks), Map.copyOf(termIds), postingChunks, postingFrequencies,
+            idf, lengthNorms);
+    }
+    
+    /**
+     * The k best chunks for the query, best first; chunks sharing no term with it are never returned
+     */
+    public List<KbHit> search(String query, int k) {
+        Set<Integer> queryTerms = new LinkedHashSet<>();
+        for (String term : TextAnalyzer.terms(query)) {
+            Integer id = termIds.get(term);
+            if (id != null) {
+                queryTerms.add(id);
+            }
+        }
+        if (queryTerms.isEmpty() || k <= 0) {
+            return List.of();
+        }
+        
+        int[] terms = queryTerms.stream().mapToInt(Integer::intValue).toArray();
+        int[] cursors = new int[terms.length];
+        PriorityQueue<Candidate> best = new PriorityQueue<>(k + 1,
+            (a, b) -> a.score() != b.score() ? Double.compare(a.score(), b.score()) : Integer.compare(b.chunk(), a.chunk()));
+        
+        while (true) {
+            // Next chunk in any of the query terms' postings
+            int chunk = Integer.MAX_VALUE;
+            for (int i = 0; i < terms.length; i++) {
+                if (cursors[i] < postingChunks[terms[i]].length) {
+                    chunk = Math.min(chunk, postingChunks[terms[i]][cursors[i]]);
+                }
+            }
+            if (chunk == Integer.MAX_VALUE) {
+                break;
+            }
+            
+            double score = 0;
+            for (int i = 0; i < terms.length; i++) {
+                int[] postings = postingChunks[terms[i]];
+                if (cursors[i] < postings.length && postings[cursors[i]] == chunk) {
+                    int tf = postingFrequencies[terms[i]][cursors[i]];
+                    score += idf[terms[i]] * tf * (K1 + 1) / (tf + lengthNorms[chunk]);
+                    cursors[i]++;
+                }
+            }
+            
+            if (best.size() < k) {
+                best.add(new Candidate(chunk, score));
+            } else if (score > best.peek().score()) {
+                best.poll();
+                best.add(new Candidate(chunk, score));
+            }
+        }
+        
+        KbHit[] hits = new KbHit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            Candidate candidate = best.poll();
+            hits[i] = new KbHit(chunks.get(candidate.chunk()), candidate.score());
+        }
+        return List.of(hits);
+    }
+    
+    public int chunkCount() {
+        return chunks.size();
+    }
+    
+    public int termCount() {
+        return postingChunks.length;
+    }
+    
+    private static int termId(Map<String, Integer> termIds, String term) {
+        Integer id = termIds.get(term);
+        if (id == null) {
+            id = termIds.size();
+            termIds.put(term, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,16 @@
+package com.aegis.kb;
+
+/**
+ * Maps text to a fixed-length vector for {@link VectorIndex}. Chunks and queries must be
+ * embedded by the same embedder, so a snapshot keeps the one its index was built with.
+ */
+public interface Embedder {
+    
+    int dimensions();
+    
+    /**
+     * The text's vector, of length {@link #dimensions()} and unit length, or all zeros when
+     * the text has nothing to embed. Must be safe to call from many threads.
+     */
+    float[] embed(String text);
+}
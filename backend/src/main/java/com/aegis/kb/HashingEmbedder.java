@@ -0,0 +1,108 @@
+package com.aegis.kb;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process stand-in for an embedding model. Hashes each term, its character trigrams and
+ * its concept group into a signed feature vector, so inflections and misspellings share
+ * trigram features and the domain synonyms below ("stolen" and "lost") share a concept
+ * feature. It has no notion of meaning beyond that; a model-backed {@link Embedder}
+ * replaces it by setting {@code aegis.kb.embedder}.
+ */
+@Component
+@ConditionalOnProperty(name = "aegis.kb.embedder", havingValue = "hashing", matchIfMissing = true)
+public class HashingEmbedder implements Embedder {
+    
+    private static final Logger logger = LoggerFactory.getLogger(HashingEmbedder.class);
+    private static final float TERM_WEIGHT = 1.0f;
+    private static final float CONCEPT_WEIGHT = 2.0f;
+    private static final float TRIGRAM_WEIGHT = 0.3f;
+    
+    private static final List<List<String>> CONCEPTS = List.of(
+        List.of("lost", "stolen", "missing", "theft", "steal", "stole", "misplaced"),
+        List.of("freeze", "frozen", "block", "lock", "locked", "suspend", "disable"),
+        List.of("dispute", "chargeback", "contest", "claim"),
+        List.of("unauthorized", "fraud", "fraudulent", "unrecognized", "suspicious", "compromised"),
+        List.of("duplicate", "double", "twice", "repeated"),
+        List.of("pending", "preauth", "authorization", "hold"),
+        List.of("captured", "capture", "posted", "settled"),
+        List.of("travel", "trip", "abroad", "overseas", "international", "departure"),
+        List.of("velocity", "impossible", "distance", "location", "geo"),
+        List.of("otp", "passcode", "verification", "verify", "code"),
+        List.of("refund", "reversal", "reimburse", "refunded"),
+        List.of("escalate", "escalation", "escalated"));
+    
+    // Stemmed word to concept group
+    private static final Map<String, Integer> CONCEPT_OF = new HashMap<>();
+    
+    static {
+        for (int group = 0; group < CONCEPTS.size(); group++) {
+            for (String word : CONCEPTS.get(group)) {
+                CONCEPT_OF.put(TextAnalyzer.stem(word), group);
+            }
+        }
+    }
+    
+    private final int dimensions;
+    
+    public HashingEmbedder(@Value("${aegis.kb.vector.dimensions:256}") int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("aegis.kb.vector.dimensions must be positive: " + dimensions);
+        }
+        this.dimensions = dimensions;
+        logger.info("Hashing embedder initialized: dimensions={}, conceptGroups={}", dimensions, CONCEPTS.size());
+    }
+    
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+    
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        for (String term : TextAnalyzer.terms(text)) {
+            add(vector, term.hashCode(), TERM_WEIGHT);
+            Integer concept = CONCEPT_OF.get(term);
+            if (concept != null) {
+                add(vector, 0x5F3759DF * (concept + 1), CONCEPT_WEIGHT);
+            }
+            String padded = "<" + term + ">";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                add(vector, 31 * padded.substring(i, i + 3).hashCode() + 7, TRIGRAM_WEIGHT);
+            }
+        }
+        
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+    
+    private void add(float[] vector, int hash, float weight) {
+        // Murmur3 finalizer: the low 31 bits pick the slot, the top bit the sign, so colliding
+        // features cancel out on average instead of piling up
+        int h = hash;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        vector[(h & 0x7FFFFFFF) % dimensions] += h < 0 ? -weight : weight;
+    }
+}
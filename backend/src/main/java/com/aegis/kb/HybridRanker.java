@@ -0,0 +1,39 @@
+package com.aegis.kb;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fuses keyword and vector rankings by reciprocal rank: a chunk scores the sum of
+ * 1 / (K + rank) over the lists it appears in. Ranks rather than raw scores are combined
+ * because BM25 and cosine scores are on unrelated scales.
+ */
+final class HybridRanker {
+    
+    // Damps the advantage of the very top ranks; 60 is the usual choice
+    private static final int K = 60;
+    
+    private HybridRanker() {
+    }
+    
+    static List<KbHit> fuse(List<KbHit> keyword, List<KbHit> vector, int k) {
+        Map<KbChunk, Double> scores = new LinkedHashMap<>();
+        addRanks(scores, keyword);
+        addRanks(scores, vector);
+        
+        List<KbHit> fused = new ArrayList<>(scores.size());
+        scores.forEach((chunk, score) -> fused.add(new KbHit(chunk, score)));
+        // Stable sort: ties keep keyword order
+        fused.sort(Comparator.comparingDouble(KbHit::score).reversed());
+        return fused.size() > k ? List.copyOf(fused.subList(0, k)) : List.copyOf(fused);
+    }
+    
+    private static void addRanks(Map<KbChunk, Double> scores, List<KbHit> ranking) {
+        for (int rank = 0; rank < ranking.size(); rank++) {
+            scores.merge(ranking.get(rank).chunk(), 1.0 / (K + rank + 1), Double::sum);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.aegis.kb;
+
+/**
+ * One searchable chunk of a knowledge base document, with its document's title and anchor
+ */
+public record KbChunk(String docId, String title, String anchor, String chunkId, String content) {
+}
@@ -0,0 +1,7 @@
+package com.aegis.kb;
+
+/**
+ * A ranked knowledge base chunk. The score is only comparable between hits of the same search.
+ */
+public record KbHit(KbChunk chunk, double score) {
+}
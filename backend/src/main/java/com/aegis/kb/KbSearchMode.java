@@ -0,0 +1,13 @@
+package com.aegis.kb;
+
+/**
+ * How {@link KbSnapshot#search} ranks chunks
+ */
+public enum KbSearchMode {
+    /** BM25 over the chunk terms */
+    KEYWORD,
+    /** Cosine similarity of chunk embeddings */
+    VECTOR,
+    /** Both, fused by reciprocal rank */
+    HYBRID
+}
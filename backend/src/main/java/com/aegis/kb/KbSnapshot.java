@@ -0,0 +1,145 @@
+package com.aegis.kb;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One immutable version of the knowledge base: the documents by ID and the keyword and
+ * vector indexes built over them. Readers hold a snapshot for the whole of a search, so a
+ * refresh never changes what an in-flight search sees. Each document is also rendered to
+ * JSON here, so serving one is a map lookup and a byte copy.
+ */
+public final class KbSnapshot {
+    
+    public static final String SOURCE_DATABASE = "database";
+    public static final String SOURCE_FIXTURES = "fixtures";
+    
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    
+    private final long version;
+    private final String source;
+    private final OffsetDateTime watermark;
+    private final Map<String, Map<String, Object>> documents;
+    private final Map<String, RenderedDocument> rendered;
+    private final Bm25Index index;
+    private final VectorIndex vectorIndex;
+    private final Instant loadedAt = Instant.now();
+    
+    /**
+     * @param watermark latest {@code updated_at} among the documents, null when not loaded from the database
+     */
+    public KbSnapshot(long version, String source, OffsetDateTime watermark, Map<String, Map<String, Object>> documents,
+                      Embedder embedder) {
+        this.version = version;
+        this.source = source;
+        this.watermark = watermark;
+        Map<String, Map<String, Object>> frozen = new LinkedHashMap<>();
+        Map<String, RenderedDocument> rendered = new HashMap<>();
+        for (Map.Entry<String, Map<String, Object>> entry : documents.entrySet()) {
+            Map<String, Object> doc = freeze(entry.getValue());
+            frozen.put(entry.getKey(), doc);
+            rendered.put(entry.getKey(), render(doc));
+        }
+        this.documents = Collections.unmodifiableMap(frozen);
+        this.rendered = Map.copyOf(rendered);
+        List<KbChunk> chunks = chunksOf(this.documents);
+        this.index = Bm25Index.build(chunks);
+        this.vectorIndex = VectorIndex.build(chunks, embedder);
+    }
+    
+    /**
+     * The k best chunks for the query, best first. Hybrid search takes {@code candidates}
+     * from each index before fusing; vector matches below {@code minSimilarity} are dropped.
+     */
+    public List<KbHit> search(String query, int k, KbSearchMode mode, int candidates, double minSimilarity) {
+        return switch (mode) {
+            case KEYWORD -> index.search(query, k);
+            case VECTOR -> vectorIndex.search(query, k, minSimilarity);
+            case HYBRID -> HybridRanker.fuse(index.search(query, Math.max(k, candidates)),
+                vectorIndex.search(query, Math.max(k, candidates), minSimilarity), k);
+        };
+    }
+    
+    public long version() {
+        return version;
+    }
+    
+    public String source() {
+        return source;
+    }
+    
+    public OffsetDateTime watermark() {
+        return watermark;
+    }
+    
+    public Map<String, Map<String, Object>> documents() {
+        return documents;
+    }
+    
+    /**
+     * The document's pre-rendered JSON, or null if there is no such document
+     */
+    public RenderedDocument rendered(String docId) {
+        return rendered.get(docId);
+    }
+    
+    public Bm25Index index() {
+        return index;
+    }
+    
+    public VectorIndex vectorIndex() {
+        return vectorIndex;
+    }
+    
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+    
+    /**
+     * Read-only copy of a document map and its chunk list, so no reader can alter a snapshot
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> freeze(Map<String, Object> doc) {
+        Map<String, Object> copy = new LinkedHashMap<>(doc);
+        List<Map<String, Object>> chunks = new ArrayList<>();
+        for (Map<String, Object> chunk : (List<Map<String, Object>>) doc.get("chunks")) {
+            chunks.add(Collections.unmodifiableMap(new LinkedHashMap<>(chunk)));
+        }
+        copy.put("chunks", Collections.unmodifiableList(chunks));
+        return Collections.unmodifiableMap(copy);
+    }
+    
+    private static RenderedDocument render(Map<String, Object> doc) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(doc);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return new RenderedDocument(json, "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"");
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to render knowledge base document " + doc.get("id"), e);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static List<KbChunk> chunksOf(Map<String, Map<String, Object>> documents) {
+        List<KbChunk> chunks = new ArrayList<>();
+        for (Map<String, Object> doc : documents.values()) {
+            for (Map<String, Object> chunk : (List<Map<String, Object>>) doc.get("chunks")) {
+                chunks.add(new KbChunk((String) doc.get("id"), (String) doc.get("title"), (String) doc.get("anchor"),
+                    (String) chunk.get("id"), (String) chunk.get("content")));
+            }
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,294 @@
+package com.aegis.kb;
+
+import com.aegis.entity.KbDocument;
+import com.aegis.metrics.MetricsService;
+import com.aegis.repository.KbDocumentRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Source of knowledge base content. Documents come from the kb_documents table, which is
+ * polled for rows whose {@code updated_at} (bumped by the table's trigger) is at or after the
+ * current snapshot's watermark minus an overlap window, so rows from transactions that commit
+ * late are still seen; rows already loaded at the same {@code updated_at} are skipped. The
+ * polls cannot see deletes, so every reconcile interval, or sooner when the row count no
+ * longer matches, the snapshot is reconciled against the table's full set of IDs and update
+ * times. Each change builds a new {@link KbSnapshot} on the refresher thread and publishes it
+ * with a single volatile write, so searches never wait on a refresh; chunk embeddings are
+ * computed in the same build. While the table is empty the bundled kb_docs.json fixture is served.
+ */
+@Component
+public class KnowledgeBaseStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseStore.class);
+    private static final String CLASSPATH_DOCS = "fixtures/kb/kb_docs.json";
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Autowired
+    private KbDocumentRepository kbDocumentRepository;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Autowired
+    private Embedder embedder;
+    
+    @Value("${aegis.kb.fixtures-file:/app/fixtures/kb/kb_docs.json}")
+    private String fixturesFile;
+    
+    @Value("${aegis.kb.refresh-interval:5000}")
+    private long refreshIntervalMs;
+    
+    @Value("${aegis.kb.refresh-overlap:60000}")
+    private long refreshOverlapMs;
+    
+    @Value("${aegis.kb.reconcile-interval:60000}")
+    private long reconcileIntervalMs;
+    
+    private volatile KbSnapshot snapshot;
+    private ScheduledExecutorService refresher;
+    
+    // Owned by refresh(): the fixture documents, and the updated_at of each database row in the snapshot
+    private Map<String, Map<String, Object>> fixtureDocuments;
+    private Map<String, OffsetDateTime> loadedVersions = Map.of();
+    private long lastReconcileMillis;
+    
+    @PostConstruct
+    void start() {
+        fixtureDocuments = loadFixtures();
+        snapshot = new KbSnapshot(0, KbSnapshot.SOURCE_FIXTURES, null, fixtureDocuments, embedder);
+        refreshQuietly();
+        
+        if (refreshIntervalMs > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("kb-refresher").daemon().factory());
+            refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    @PreDestroy
+    void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+    
+    /**
+     * The current knowledge base version
+     */
+    public KbSnapshot snapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Picks up database changes since the current snapshot
+     *
+     * @return whether a new snapshot was published
+     */
+    public synchronized boolean refresh() {
+        long startTime = System.currentTimeMillis();
+        KbSnapshot current = snapshot;
+        boolean fromDatabase = KbSnapshot.SOURCE_DATABASE.equals(current.source());
+        
+        Map<String, Map<String, Object>> documents = new LinkedHashMap<>(fromDatabase ? current.documents() : Map.of());
+        Map<String, OffsetDateTime> versions = new HashMap<>(fromDatabase ? loadedVersions : Map.of());
+        String mode;
+        boolean changed;
+        if (!fromDatabase || current.watermark() == null || startTime - lastReconcileMillis >= reconcileIntervalMs) {
+            mode = fromDatabase ? "reconcile" : "full";
+            changed = reconcile(documents, versions);
+        } else {
+            mode = "incremental";
+            changed = applyChangesSince(current.watermark(), documents, versions);
+            if (kbDocumentRepository.count() != documents.size()) {
+                // Rows were deleted, or inserted outside the polled window
+                mode = "reconcile";
+                changed |= reconcile(documents, versions);
+            }
+        }
+        
+        KbSnapshot next;
+        if (versions.isEmpty()) {
+            if (!fromDatabase) {
+                // Nothing in the database yet; keep serving the fixtures
+                return false;
+            }
+            // The table was emptied; fall back to the fixtures rather than serve deleted rows
+            mode = "fixtures";
+            next = new KbSnapshot(current.version() + 1, KbSnapshot.SOURCE_FIXTURES, null, fixtureDocuments, embedder);
+        } else if (changed) {
+            OffsetDateTime watermark = null;
+            for (OffsetDateTime updatedAt : versions.values()) {
+                watermark = latest(watermark, updatedAt);
+            }
+            next = new KbSnapshot(current.version() + 1, KbSnapshot.SOURCE_DATABASE, watermark, documents, embedder);
+        } else {
+            return false;
+        }
+        
+        snapshot = next;
+        loadedVersions = versions;
+        
+        long duration = System.currentTimeMillis() - startTime;
+        metricsService.recordKbRefresh(mode, duration);
+        logger.info("Knowledge base snapshot v{} published ({} refresh): {} documents, {} chunks in {}ms",
+                   next.version(), mode, next.documents().size(), next.index().chunkCount(), duration);
+        return true;
+    }
+    
+    /**
+     * Applies rows updated at or after the watermark, less the overlap window
+     */
+    private boolean applyChangesSince(OffsetDateTime watermark, Map<String, Map<String, Object>> documents,
+                                      Map<String, OffsetDateTime> versions) {
+        boolean changed = false;
+        OffsetDateTime since = watermark.minus(Duration.ofMillis(refreshOverlapMs));
+        for (KbDocument row : kbDocumentRepository.findByUpdatedAtGreaterThanEqualOrderByUpdatedAtAsc(since)) {
+            if (!sameTime(row.getUpdatedAt(), versions.get(row.getId()))) {
+                documents.put(row.getId(), toDocument(row));
+                versions.put(row.getId(), row.getUpdatedAt());
+                changed = true;
+            }
+        }
+        return changed;
+    }
+    
+    /**
+     * Brings the documents in line with the table: drops deleted IDs and loads rows that are
+     * new or whose updated_at differs from the loaded one
+     */
+    private boolean reconcile(Map<String, Map<String, Object>> documents, Map<String, OffsetDateTime> versions) {
+        lastReconcileMillis = System.currentTimeMillis();
+        Map<String, OffsetDateTime> live = new HashMap<>();
+        for (KbDocumentRepository.KbDocumentVersion row : kbDocumentRepository.findAllVersions()) {
+            live.put(row.getId(), row.getUpdatedAt());
+        }
+        
+        boolean changed = documents.keySet().retainAll(live.keySet());
+        versions.keySet().retainAll(live.keySet());
+        
+        List<String> stale = new ArrayList<>();
+        for (Map.Entry<String, OffsetDateTime> entry : live.entrySet()) {
+            if (!sameTime(entry.getValue(), versions.get(entry.getKey()))) {
+                stale.add(entry.getKey());
+            }
+        }
+        if (stale.isEmpty()) {
+            return changed;
+        }
+        
+        Collections.sort(stale);
+        Map<String, KbDocument> rows = new HashMap<>();
+        for (KbDocument row : kbDocumentRepository.findAllById(stale)) {
+            rows.put(row.getId(), row);
+        }
+        for (String id : stale) {
+            // A row deleted since the ID scan is picked up by the next reconcile
+            KbDocument row = rows.get(id);
+            if (row != null) {
+                documents.put(id, toDocument(row));
+                versions.put(id, row.getUpdatedAt());
+                changed = true;
+            }
+        }
+        return changed;
+    }
+    
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.warn("Knowledge base refresh failed, keeping snapshot v{}: {}", snapshot.version(), e.getMessage());
+        }
+    }
+    
+    private Map<String, Object> toDocument(KbDocument row) {
+        try {
+            JsonNode content = row.getContent() != null ? objectMapper.readTree(row.getContent()) : null;
+            JsonNode chunks = content != null && content.isObject() ? content.get("chunks") : content;
+            return document(row.getId(), row.getTitle(), row.getAnchor(), chunks);
+        } catch (IOException | RuntimeException e) {
+            // One bad row must not stop the refresh, or the watermark never moves past it
+            logger.warn("Knowledge base document {} has invalid content, indexing it without chunks: {}",
+                       row.getId(), e.getMessage());
+            return document(row.getId(), row.getTitle(), row.getAnchor(), null);
+        }
+    }
+    
+    private Map<String, Map<String, Object>> loadFixtures() {
+        Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+        try {
+            File kbFile = new File(fixturesFile);
+            try (InputStream inputStream = kbFile.exists()
+                    ? new FileInputStream(kbFile) : new ClassPathResource(CLASSPATH_DOCS).getInputStream()) {
+                for (JsonNode docNode : objectMapper.readTree(inputStream)) {
+                    String id = docNode.get("id").asText();
+                    documents.put(id, document(id, docNode.get("title").asText(), docNode.get("anchor").asText(),
+                        docNode.get("chunks")));
+                }
+            }
+            logger.info("Loaded {} knowledge base documents from fixtures", documents.size());
+        
+        } catch (IOException e) {
+            logger.error("Failed to load knowledge base fixtures", e);
+        }
+        return documents;
+    }
+    
+    private static Map<String, Object> document(String id, String title, String anchor, JsonNode chunkNodes) {
+        List<Map<String, Object>> chunks = new ArrayList<>();
+        if (chunkNodes != null) {
+            for (JsonNode chunkNode : chunkNodes) {
+                if (!chunkNode.hasNonNull("id") || !chunkNode.hasNonNull("content")) {
+                    logger.warn("Knowledge base document {} has a chunk without id or content, skipping it", id);
+                    continue;
+                }
+                Map<String, Object> chunk = new HashMap<>();
+                chunk.put("id", chunkNode.get("id").asText());
+                chunk.put("content", chunkNode.get("content").asText());
+                chunk.put("metadata", chunkNode.get("metadata"));
+                chunks.add(chunk);
+            }
+        }
+        
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("id", id);
+        doc.put("title", title);
+        doc.put("anchor", anchor);
+        doc.put("chunks", chunks);
+        return doc;
+    }
+    
+    private static OffsetDateTime latest(OffsetDateTime a, OffsetDateTime b) {
+        return a == null || (b != null && b.isAfter(a)) ? b : a;
+    }
+    
+    private static boolean sameTime(OffsetDateTime a, OffsetDateTime b) {
+        return a != null && b != null && a.isEqual(b);
+    }
+}
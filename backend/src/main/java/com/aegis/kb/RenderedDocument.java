@@ -0,0 +1,10 @@
+package com.aegis.kb;
+
+/**
+ * A knowledge base document serialized to JSON once, when its snapshot was built
+ *
+ * @param json UTF-8 JSON of the document; callers must not modify it
+ * @param etag quoted hash of {@code json}, unchanged across snapshots while the document is
+ */
+public record RenderedDocument(byte[] json, String etag) {
+}
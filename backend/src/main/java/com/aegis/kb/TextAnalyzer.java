@@ -0,0 +1,100 @@
+package com.aegis.kb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns text into index terms: lower-cased alphanumeric runs, stop words dropped, and a
+ * light suffix-stripping stemmer so that "charges", "charged" and "charge" share a term.
+ * Documents and queries must go through the same analyzer.
+ */
+public final class TextAnalyzer {
+    
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "by", "can", "do", "for", "from", "how", "i", "if",
+        "in", "is", "it", "me", "my", "of", "on", "or", "should", "that", "the", "this", "to", "was",
+        "what", "when", "which", "with", "you", "your");
+    
+    private TextAnalyzer() {
+    }
+    
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                String word = token.toString();
+                token.setLength(0);
+                if (!STOP_WORDS.contains(word)) {
+                    terms.add(stem(word));
+                }
+            }
+        }
+        return terms;
+    }
+    
+    static String stem(String word) {
+        if (word.length() <= 3 || !Character.isLetter(word.charAt(word.length() - 1))) {
+            return word;
+        }
+        String stem = word;
+        
+        // Plurals
+        if (stem.endsWith("sses")) {
+            stem = stem.substring(0, stem.length() - 2);
+        } else if (stem.endsWith("ies")) {
+            stem = stem.substring(0, stem.length() - 3) + "i";
+        } else if (stem.endsWith("s") && !stem.endsWith("ss") && !stem.endsWith("us") && !stem.endsWith("is")) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        
+        // Derivational endings that map back onto a verb stem
+        if (stem.endsWith("ication")) {
+            stem = stem.substring(0, stem.length() - 7) + "i";
+        } else if (stem.endsWith("ization")) {
+            stem = stem.substring(0, stem.length() - 5);
+        }
+        
+        // Verb endings, when a syllable is left
+        for (String suffix : new String[] {"ing", "ed"}) {
+            if (stem.endsWith(suffix) && hasVowel(stem, stem.length() - suffix.length())
+                    && stem.length() - suffix.length() >= 3) {
+                stem = stem.substring(0, stem.length() - suffix.length());
+                int n = stem.length();
+                if (n >= 2 && stem.charAt(n - 1) == stem.charAt(n - 2) && !isVowel(stem.charAt(n - 1))
+                        && "lsz".indexOf(stem.charAt(n - 1)) < 0) {
+                    stem = stem.substring(0, n - 1);
+                }
+                break;
+            }
+        }
+        
+        int n = stem.length();
+        if (n > 3 && stem.charAt(n - 1) == 'y' && !isVowel(stem.charAt(n - 2))) {
+            stem = stem.substring(0, n - 1) + "i";
+        } else if (n > 4 && stem.charAt(n - 1) == 'e') {
+            stem = stem.substring(0, n - 1);
+        }
+        return stem;
+    }
+    
+    private static boolean hasVowel(String word, int end) {
+        for (int i = 0; i < end; i++) {
+            if (isVowel(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
@@ -0,0 +1,77 @@
+package com.aegis.kb;
+
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable exact nearest-neighbour index over chunk embeddings. All vectors sit
+ * row-major in one float array, so a query is a single sequential pass of dot products
+ * the JIT can vectorize, with no per-chunk objects or pointer chasing. Vectors are unit
+ * length, so the dot product is the cosine similarity.
+ */
+public final class VectorIndex {
+    
+    private record Candidate(int chunk, float score) {}
+    
+    private final List<KbChunk> chunks;
+    private final Embedder embedder;
+    private final int dimensions;
+    private final float[] vectors;
+    
+    private VectorIndex(List<KbChunk> chunks, Embedder embedder, float[] vectors) {
+        this.chunks = chunks;
+        this.embedder = embedder;
+        this.dimensions = embedder.dimensions();
+        this.vectors = vectors;
+    }
+    
+    public static VectorIndex build(List<KbChunk> chunks, Embedder embedder) {
+        int dimensions = embedder.dimensions();
+        float[] vectors = new float[chunks.size() * dimensions];
+        for (int c = 0; c < chunks.size(); c++) {
+            KbChunk chunk = chunks.get(c);
+            float[] vector = embedder.embed(chunk.title() + " " + chunk.content());
+            System.arraycopy(vector, 0, vectors, c * dimensions, dimensions);
+        }
+        return new VectorIndex(List.copyOf(chunks), embedder, vectors);
+    }
+    
+    /**
+     * The k chunks most similar to the query, best first, skipping any below {@code minSimilarity}
+     */
+    public List<KbHit> search(String query, int k, double minSimilarity) {
+        float[] q = embedder.embed(query);
+        if (k <= 0) {
+            return List.of();
+        }
+        
+        PriorityQueue<Candidate> best = new PriorityQueue<>(k + 1,
+            (a, b) -> a.score() != b.score() ? Float.compare(a.score(), b.score()) : Integer.compare(b.chunk(), a.chunk()));
+        for (int c = 0, offset = 0; c < chunks.size(); c++, offset += dimensions) {
+            float score = 0;
+            for (int i = 0; i < dimensions; i++) {
+                score += q[i] * vectors[offset + i];
+            }
+            if (score < minSimilarity || score <= 0) {
+                continue;
+            }
+            if (best.size() < k) {
+                best.add(new Candidate(c, score));
+            } else if (score > best.peek().score()) {
+                best.poll();
+                best.add(new Candidate(c, score));
+            }
+        }
+        
+        KbHit[] hits = new KbHit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            Candidate candidate = best.poll();
+            hits[i] = new KbHit(chunks.get(candidate.chunk()), candidate.score());
+        }
+        return List.of(hits);
+    }
+    
+    public int dimensions() {
+        return dimensions;
+    }
+}
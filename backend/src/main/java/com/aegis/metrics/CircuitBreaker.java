@@ -0,0 +1,218 @@
+package com.aegis.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free circuit breaker for a single step.
+ *
+ * CLOSED: all calls pass; outcomes go into a count-based sliding window and the
+ * breaker opens when the failure rate or slow-call rate crosses its threshold.
+ * OPEN: calls are rejected until the wait duration has elapsed.
+ * HALF_OPEN: a limited number of probe calls pass; their outcomes decide
+ * whether the breaker closes again or re-opens.
+ */
+public class CircuitBreaker {
+    
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+    
+    /**
+     * Thresholds shared by all breakers in a registry
+     */
+    public record Config(int slidingWindowSize, int minimumCalls, int failureThreshold,
+                         double failureRateThreshold, double slowCallRateThreshold,
+                         long slowCallDurationMs, long openDurationMs, int halfOpenPermittedCalls) {
+    }
+    
+    private static final int RECORDED = 1;
+    private static final int FAILED = 2;
+    private static final int SLOW = 4;
+    
+    /**
+     * State plus everything that belongs to it, published together. Each transition installs
+     * a new phase with a fresh window or probe counters, so a late result recorded against
+     * the previous phase cannot corrupt the new one.
+     */
+    private record Phase(State state, long openedAtNanos, Window window, Probes probes) {}
+    
+    private final String name;
+    private final Config config;
+    private final AtomicReference<Phase> phase;
+    
+    public CircuitBreaker(String name, Config config) {
+        this.name = name;
+        this.config = config;
+        this.phase = new AtomicReference<>(closed());
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public State getState() {
+        return phase.get().state();
+    }
+    
+    /**
+     * Whether a call may proceed. Every permitted call must be followed by
+     * {@link #onSuccess} or {@link #onError}.
+     */
+    public boolean tryAcquirePermission() {
+        while (true) {
+            Phase current = phase.get();
+            switch (current.state()) {
+                case CLOSED:
+                    return true;
+                case HALF_OPEN:
+                    return current.probes().tryAcquire();
+                case OPEN:
+                    long openFor = System.nanoTime() - current.openedAtNanos();
+                    if (openFor < config.openDurationMs() * 1_000_000L) {
+                        return false;
+                    }
+                    // Only the thread that wins the transition creates the probe permits
+                    phase.compareAndSet(current, new Phase(State.HALF_OPEN, current.openedAtNanos(), null,
+                        new Probes(config.halfOpenPermittedCalls())));
+            }
+        }
+    }
+    
+    public void onSuccess(long durationMs) {
+        record(false, durationMs >= config.slowCallDurationMs());
+    }
+    
+    public void onError(long durationMs) {
+        record(true, durationMs >= config.slowCallDurationMs());
+    }
+    
+    private void record(boolean failed, boolean slow) {
+        Phase current = phase.get();
+        if (current.state() == State.HALF_OPEN) {
+            recordProbe(current, failed || slow);
+        } else if (current.state() == State.CLOSED) {
+            current.window().record(failed, slow);
+            if (current.window().shouldTrip(config)) {
+                open(current);
+            }
+        }
+        // Results arriving while OPEN belong to calls admitted earlier and are ignored
+    }
+    
+    private void recordProbe(Phase current, boolean bad) {
+        Probes probes = current.probes();
+        if (bad) {
+            probes.bad.incrementAndGet();
+        }
+        int completed = probes.completed.incrementAndGet();
+        if (completed < config.halfOpenPermittedCalls()) {
+            return;
+        }
+        double badRate = 100.0 * probes.bad.get() / completed;
+        if (badRate >= Math.min(config.failureRateThreshold(), config.slowCallRateThreshold())) {
+            open(current);
+        } else {
+            phase.compareAndSet(current, closed());
+        }
+    }
+    
+    private void open(Phase from) {
+        phase.compareAndSet(from, new Phase(State.OPEN, System.nanoTime(), null, null));
+    }
+    
+    private Phase closed() {
+        return new Phase(State.CLOSED, 0, new Window(config.slidingWindowSize()), null);
+    }
+    
+    /**
+     * Failure rate in percent over the current window
+     */
+    public double getFailureRate() {
+        Window window = phase.get().window();
+        return window == null ? 0.0 : window.rate(window.failures);
+    }
+    
+    /**
+     * Slow-call rate in percent over the current window
+     */
+    public double getSlowCallRate() {
+        Window window = phase.get().window();
+        return window == null ? 0.0 : window.rate(window.slowCalls);
+    }
+    
+    /**
+     * Sliding window of the last N outcomes plus running totals, for one CLOSED phase
+     */
+    private static final class Window {
+        
+        private final AtomicIntegerArray outcomes;
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger slowCalls = new AtomicInteger();
+        
+        Window(int size) {
+            this.outcomes = new AtomicIntegerArray(size);
+        }
+        
+        void record(boolean failed, boolean slow) {
+            int outcome = RECORDED | (failed ? FAILED : 0) | (slow ? SLOW : 0);
+            int slot = (int) (cursor.getAndIncrement() % outcomes.length());
+            int evicted = outcomes.getAndSet(slot, outcome);
+            
+            calls.addAndGet(bit(outcome, RECORDED) - bit(evicted, RECORDED));
+            failures.addAndGet(bit(outcome, FAILED) - bit(evicted, FAILED));
+            slowCalls.addAndGet(bit(outcome, SLOW) - bit(evicted, SLOW));
+        }
+        
+        boolean shouldTrip(Config config) {
+            int total = calls.get();
+            if (total < config.minimumCalls()) {
+                return false;
+            }
+            int failed = failures.get();
+            boolean failing = failed >= config.failureThreshold() 
+                && 100.0 * failed / total >= config.failureRateThreshold();
+            boolean slow = 100.0 * slowCalls.get() / total >= config.slowCallRateThreshold();
+            return failing || slow;
+        }
+        
+        double rate(AtomicInteger count) {
+            int total = calls.get();
+            return total == 0 ? 0.0 : 100.0 * count.get() / total;
+        }
+        
+        private static int bit(int outcome, int flag) {
+            return (outcome & flag) != 0 ? 1 : 0;
+        }
+    }
+    
+    /**
+     * Probe permits and outcomes for one HALF_OPEN phase
+     */
+    private static final class Probes {
+        
+        private final AtomicInteger permits;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger bad = new AtomicInteger();
+        
+        Probes(int permits) {
+            this.permits = new AtomicInteger(permits);
+        }
+        
+        boolean tryAcquire() {
+            while (true) {
+                int available = permits.get();
+                if (available <= 0) {
+                    return false;
+                }
+                if (permits.compareAndSet(available, available - 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.aegis.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One circuit breaker per step name, configured under aegis.agents.circuit-breaker
+ */
+@Component
+public class CircuitBreakerRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerRegistry.class);
+    
+    private final CircuitBreaker.Config config;
+    private final MetricsService metricsService;
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    
+    public CircuitBreakerRegistry(
+            MetricsService metricsService,
+            @Value("${aegis.agents.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${aegis.agents.circuit-breaker.minimum-calls:5}") int minimumCalls,
+            @Value("${aegis.agents.circuit-breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${aegis.agents.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+            @Value("${aegis.agents.circuit-breaker.slow-call-rate-threshold:80}") double slowCallRateThreshold,
+            @Value("${aegis.agents.circuit-breaker.slow-call-duration:800}") long slowCallDurationMs,
+            @Value("${aegis.agents.circuit-breaker.timeout:30000}") long openDurationMs,
+            @Value("${aegis.agents.circuit-breaker.half-open-permitted-calls:3}") int halfOpenPermittedCalls) {
+        this.metricsService = metricsService;
+        this.config = new CircuitBreaker.Config(slidingWindowSize, minimumCalls, failureThreshold,
+            failureRateThreshold, slowCallRateThreshold, slowCallDurationMs, openDurationMs, halfOpenPermittedCalls);
+    }
+    
+    /**
+     * Returns the breaker for a step, creating it and its gauges on first use
+     */
+    public CircuitBreaker forStep(String stepName) {
+        CircuitBreaker breaker = breakers.get(stepName);
+        if (breaker != null) {
+            return breaker;
+        }
+        return breakers.computeIfAbsent(stepName, name -> {
+            CircuitBreaker created = new CircuitBreaker(name, config);
+            metricsService.registerCircuitBreakerGauges(created);
+            logger.debug("Created circuit breaker for step={}", name);
+            return created;
+        });
+    }
+}
@@ -2,13 +2,15 @@ package com.aegis.metrics;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Semaphore;
 
 @Service
 public class MetricsService {
@@ -27,10 +29,6 @@ public class MetricsService {
     // Distribution summaries
     private final DistributionSummary agentLatencyMs;
     
-    // Circuit breaker state
-    private final ConcurrentHashMap<String, AtomicInteger> circuitBreakerFailures = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Long> circuitBreakerOpenTime = new ConcurrentHashMap<>();
-    
     @Autowired
     public MetricsService(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
@@ -89,6 +87,26 @@ public class MetricsService {
             .increment();
     }
     
+    /**
+     * Record a retried step attempt
+     */
+    public void recordStepRetry(String tool) {
+        Counter.builder("agent_step_retry_total")
+            .tag("tool", tool)
+            .register(meterRegistry)
+            .increment();
+    }
+    
+    /**
+     * Record a hedged step attempt
+     */
+    public void recordStepHedge(String tool) {
+        Counter.builder("agent_step_hedge_total")
+            .tag("tool", tool)
+            .register(meterRegistry)
+            .increment();
+    }
+    
     /**
      * Record a rate limit block
      */
@@ -131,49 +149,210 @@ public class MetricsService {
     }
     
     /**
-     * Check if circuit breaker is open for a service
+     * Register queue-depth and active-task gauges for an executor
      */
-    public boolean isCircuitBreakerOpen(String serviceName) {
-        AtomicInteger failures = circuitBreakerFailures.get(serviceName);
-        if (failures == null) {
-            return false;
-        }
-        
-        if (failures.get() >= 3) {
-            Long openTime = circuitBreakerOpenTime.get(serviceName);
-            if (openTime != null && System.currentTimeMillis() - openTime < 30000) { // 30 seconds
-                return true;
-            } else {
-                // Reset circuit breaker after 30 seconds
-                failures.set(0);
-                circuitBreakerOpenTime.remove(serviceName);
-                return false;
-            }
-        }
-        
-        return false;
+    public void registerExecutorGauges(String executorName, InstrumentedExecutorService executor) {
+        Gauge.builder("executor_queue_depth", executor, InstrumentedExecutorService::getQueueDepth)
+            .description("Tasks submitted but not yet started")
+            .tag("executor", executorName)
+            .register(meterRegistry);
+            
+        Gauge.builder("executor_active_tasks", executor, InstrumentedExecutorService::getActiveCount)
+            .description("Tasks currently running")
+            .tag("executor", executorName)
+            .register(meterRegistry);
     }
     
     /**
-     * Record a circuit breaker failure
+     * Register state, failure-rate and slow-call-rate gauges for a circuit breaker
      */
-    public void recordCircuitBreakerFailure(String serviceName) {
-        AtomicInteger failures = circuitBreakerFailures.computeIfAbsent(serviceName, k -> new AtomicInteger(0));
-        int currentFailures = failures.incrementAndGet();
-        
-        if (currentFailures >= 3) {
-            circuitBreakerOpenTime.put(serviceName, System.currentTimeMillis());
+    public void registerCircuitBreakerGauges(CircuitBreaker breaker) {
+        // 0 = closed, 1 = open, 2 = half-open
+        Gauge.builder("circuit_breaker_state", breaker, b -> b.getState().ordinal())
+            .description("Circuit breaker state (0 closed, 1 open, 2 half-open)")
+            .tag("tool", breaker.getName())
+            .register(meterRegistry);
+            
+        Gauge.builder("circuit_breaker_failure_rate", breaker, CircuitBreaker::getFailureRate)
+            .description("Failure rate in percent over the sliding window")
+            .tag("tool", breaker.getName())
+            .register(meterRegistry);
+            
+        Gauge.builder("circuit_breaker_slow_call_rate", breaker, CircuitBreaker::getSlowCallRate)
+            .description("Slow-call rate in percent over the sliding window")
+            .tag("tool", breaker.getName())
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Record a call rejected by an open circuit breaker
+     */
+    public void recordCircuitBreakerRejection(String tool) {
+        Counter.builder("circuit_breaker_rejected_total")
+            .tag("tool", tool)
+            .register(meterRegistry)
+            .increment();
+    }
+    
+    /**
+     * Record a streaming event dropped because the client's buffer was full
+     */
+    public void recordSseEventDropped(String event) {
+        Counter.builder("sse_events_dropped_total")
+            .tag("event", event)
+            .register(meterRegistry)
+            .increment();
+    }
+    
+    /**
+     * Register the depth gauge of the agent trace persistence queue
+     */
+    public void registerTracePersistenceGauge(Collection<?> queue) {
+        Gauge.builder("trace_persist_queue_depth", queue, Collection::size)
+            .description("Finished traces waiting to be written to agent_traces")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Record a flushed batch of agent traces
+     */
+    public void recordTracesPersisted(int count, long durationMs) {
+        Counter.builder("trace_persist_written_total")
+            .register(meterRegistry)
+            .increment(count);
+        Timer.builder("trace_persist_flush")
+            .description("Time to write one batch of agent traces")
+            .register(meterRegistry)
+            .record(durationMs, java.util.concurrent.TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Record agent traces that were not persisted
+     */
+    public void recordTracesDropped(String reason, int count) {
+        Counter.builder("trace_persist_dropped_total")
+            .tag("reason", reason)
+            .register(meterRegistry)
+            .increment(count);
+    }
+    
+    /**
+     * Record preauth/capture duplicate pairs found while ingesting
+     */
+    public void recordDuplicateChargesDetected(int count) {
+        Counter.builder("duplicate_charge_detected_total")
+            .register(meterRegistry)
+            .increment(count);
+    }
+    
+    /**
+     * Register queue-depth and in-flight gauges for the risk scoring client
+     */
+    public void registerRiskScoringGauges(Collection<?> queue, Semaphore inFlight, int maxInFlight) {
+        Gauge.builder("risk_scoring_queue_depth", queue, Collection::size)
+            .description("Scoring requests waiting for a batch")
+            .register(meterRegistry);
+            
+        Gauge.builder("risk_scoring_in_flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+            .description("Scoring batches sent and not yet answered")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Record one call to the risk scoring backend
+     */
+    public void recordRiskScoringBatch(int batchSize, long durationMs, boolean success) {
+        DistributionSummary.builder("risk_scoring_batch_size")
+            .description("Requests per risk scoring call")
+            .register(meterRegistry)
+            .record(batchSize);
+        Timer.builder("risk_scoring_call")
+            .description("Time for one risk scoring backend call")
+            .tag("ok", String.valueOf(success))
+            .register(meterRegistry)
+            .record(durationMs, java.util.concurrent.TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Record a scoring request turned away because the queue was full
+     */
+    public void recordRiskScoringRejected() {
+        Counter.builder("risk_scoring_rejected_total")
+            .register(meterRegistry)
+            .increment();
+    }
+    
+    /**
+     * Record one risk rule evaluation and the rules that matched
+     */
+    public void recordRiskRuleEvaluation(long durationNanos, List<String> matchedRules) {
+        Timer.builder("risk_rule_evaluation")
+            .description("Time to evaluate the risk rules for one transaction")
+            .register(meterRegistry)
+            .record(durationNanos, java.util.concurrent.TimeUnit.NANOSECONDS);
+        for (String rule : matchedRules) {
+            Counter.builder("risk_rule_hit_total")
+                .tag("rule", rule)
+                .register(meterRegistry)
+                .increment();
         }
     }
     
     /**
-     * Record a circuit breaker success
+     * Record a risk rules reload attempt
+     */
+    public void recordRiskRuleReload(boolean success) {
+        Counter.builder("risk_rule_reload_total")
+            .tag("ok", String.valueOf(success))
+            .register(meterRegistry)
+            .increment();
+    }
+    
+    /**
+     * Record a fraud ring graph rebuild and how many customers it flagged
      */
-    public void recordCircuitBreakerSuccess(String serviceName) {
-        AtomicInteger failures = circuitBreakerFailures.get(serviceName);
-        if (failures != null) {
-            failures.set(0);
+    public void recordFraudRingBuild(long durationMs, int flaggedCustomers, boolean success) {
+        Timer.builder("fraud_ring_build")
+            .description("Time to rebuild the cross-customer fraud ring graph")
+            .tag("ok", String.valueOf(success))
+            .register(meterRegistry)
+            .record(durationMs, java.util.concurrent.TimeUnit.MILLISECONDS);
+        if (success) {
+            DistributionSummary.builder("fraud_ring_flagged_customers")
+                .description("Customers linked to a suspicious cluster per graph build")
+                .register(meterRegistry)
+                .record(flaggedCustomers);
         }
-        circuitBreakerOpenTime.remove(serviceName);
+    }
+    
+    /**
+     * Record a triage lookup of an ingest-time pre-score
+     */
+    public void recordPreScoreLookup(String outcome) {
+        Counter.builder("risk_pre_score_lookup_total")
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+    
+    /**
+     * Record a knowledge base refresh that published a new snapshot
+     */
+    public void recordKbRefresh(String mode, long durationMs) {
+        Timer.builder("kb_refresh")
+            .description("Time to load changed knowledge base documents and rebuild the search index")
+            .tag("mode", mode)
+            .register(meterRegistry)
+            .record(durationMs, java.util.concurrent.TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Record a knowledge base search served from, or added to, the query cache
+     */
+    public void recordKbSearchCacheLookup(boolean hit) {
+        Counter.builder("kb_search_cache_total")
+            .tag("outcome", hit ? "hit" : "miss")
+            .register(meterRegistry)
+            .increment();
     }
 }
@@ -0,0 +1,71 @@
+package com.aegis.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the most recent successful latencies per step so the orchestrator can
+ * read a live p95 (e.g. for hedging) without querying the meter registry.
+ */
+@Component
+public class StepLatencyTracker {
+    
+    private static final int WINDOW_SIZE = 128;
+    
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    
+    /**
+     * Record a successful step latency
+     */
+    public void record(String stepName, long latencyMs) {
+        windows.computeIfAbsent(stepName, k -> new Window()).record(latencyMs);
+    }
+    
+    /**
+     * Number of samples currently held for a step (at most the window size)
+     */
+    public int sampleCount(String stepName) {
+        Window window = windows.get(stepName);
+        return window == null ? 0 : window.size();
+    }
+    
+    /**
+     * Latency at the given quantile over the recent window, or -1 if no samples exist
+     */
+    public long percentile(String stepName, double quantile) {
+        Window window = windows.get(stepName);
+        return window == null ? -1 : window.percentile(quantile);
+    }
+    
+    private static class Window {
+        private final AtomicLongArray samples = new AtomicLongArray(WINDOW_SIZE);
+        private final AtomicLong cursor = new AtomicLong();
+        
+        void record(long latencyMs) {
+            int slot = (int) (cursor.getAndIncrement() % WINDOW_SIZE);
+            samples.set(slot, latencyMs);
+        }
+        
+        int size() {
+            return (int) Math.min(cursor.get(), WINDOW_SIZE);
+        }
+        
+        long percentile(double quantile) {
+            int size = size();
+            if (size == 0) {
+                return -1;
+            }
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(quantile * size) - 1;
+            return sorted[Math.max(0, Math.min(index, size - 1))];
+        }
+    }
+}
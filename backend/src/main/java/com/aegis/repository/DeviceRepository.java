@@ -0,0 +1,16 @@
+package com.aegis.repository;
+
+import com.aegis.entity.Device;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+
+import java.util.List;
+
+@Repository
+public interface DeviceRepository extends JpaRepository<Device, String> {
+    
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    List<Device> findByCustomerId(String customerId);
+}
@@ -0,0 +1,30 @@
+package com.aegis.repository;
+
+import com.aegis.entity.KbDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface KbDocumentRepository extends JpaRepository<KbDocument, String> {
+    
+    /**
+     * ID and last update of a document, without its content
+     */
+    interface KbDocumentVersion {
+        String getId();
+        
+        OffsetDateTime getUpdatedAt();
+    }
+    
+    @Query("SELECT d.id AS id, d.updatedAt AS updatedAt FROM KbDocument d")
+    List<KbDocumentVersion> findAllVersions();
+    
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    List<KbDocument> findByUpdatedAtGreaterThanEqualOrderByUpdatedAtAsc(OffsetDateTime since);
+}
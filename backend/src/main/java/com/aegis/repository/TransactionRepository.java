@@ -91,6 +91,56 @@ public interface TransactionRepository extends JpaRepository<Transaction, String
         @Param("status") String status
     );
 
+    /**
+     * The next transactions in (ts, id) order after the given position. Keyset paging: each
+     * page is an index seek, and rows inserted during a scan cannot shift later pages.
+     */
+    @Query("""
+        SELECT t FROM Transaction t 
+        WHERE t.ts > :ts OR (t.ts = :ts AND t.id > :id) 
+        ORDER BY t.ts ASC, t.id ASC""")
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+        @QueryHint(name = "org.hibernate.fetchSize", value = "1000")
+    })
+    List<Transaction> findPageAfter(
+        @Param("ts") OffsetDateTime ts, 
+        @Param("id") String id, 
+        Pageable pageable
+    );
+
+    /**
+     * Who transacted where after the given (ts, id) position, as (customer, device, merchant,
+     * card, ts, id) rows in keyset order
+     */
+    @Query("""
+        SELECT t.customerId, t.deviceId, t.merchant, t.cardId, t.ts, t.id FROM Transaction t 
+        WHERE t.ts > :ts OR (t.ts = :ts AND t.id > :id) 
+        ORDER BY t.ts ASC, t.id ASC""")
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+        @QueryHint(name = "org.hibernate.fetchSize", value = "5000")
+    })
+    List<Object[]> findEntityLinksAfter(
+        @Param("ts") OffsetDateTime ts,
+        @Param("id") String id,
+        Pageable pageable
+    );
+
+    /**
+     * First use of each MCC by the customer, as (mcc, min ts) rows
+     */
+    @Query("SELECT t.mcc, MIN(t.ts) FROM Transaction t WHERE t.customerId = :customerId AND t.mcc IS NOT NULL GROUP BY t.mcc")
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    List<Object[]> findFirstUseOfMccsByCustomerId(@Param("customerId") String customerId);
+
+    /**
+     * First use of each device by the customer, as (device id, min ts) rows
+     */
+    @Query("SELECT t.deviceId, MIN(t.ts) FROM Transaction t WHERE t.customerId = :customerId AND t.deviceId IS NOT NULL GROUP BY t.deviceId")
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    List<Object[]> findFirstUseOfDevicesByCustomerId(@Param("customerId") String customerId);
+
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.customerId = :customerId AND t.ts >= :from")
     long countByCustomerIdAndTsAfter(
         @Param("customerId") String customerId, 
@@ -0,0 +1,22 @@
+package com.aegis.risk;
+
+/**
+ * Distribution of a customer's transaction amounts, overall or within one MCC. Amounts
+ * are in the smallest currency unit.
+ *
+ * @param stdDev sample standard deviation
+ * @param p50    approximate median
+ * @param p95    approximate 95th percentile
+ */
+public record AmountProfile(long count, double mean, double stdDev, double p50, double p95) {
+    
+    /**
+     * Standard score of an amount; 0 without enough spread to judge
+     */
+    public double zScore(long amount) {
+        if (stdDev <= 0) {
+            return 0;
+        }
+        return (amount - mean) / stdDev;
+    }
+}
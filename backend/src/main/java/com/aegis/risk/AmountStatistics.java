@@ -0,0 +1,117 @@
+package com.aegis.risk;
+
+import com.aegis.entity.Transaction;
+import com.aegis.service.TransactionIngestListener;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+/**
+ * Online amount statistics per customer and per (customer, MCC), updated from the ingest
+ * stream and the startup bootstrap. Any single amount can be scored against the customer's
+ * history without fetching it: against the MCC when that has enough samples, otherwise
+ * against all of the customer's transactions.
+ * <p>
+ * A transaction must not be judged against statistics that already contain it: an
+ * outlier inside its own sample of n can score at most (n-1)/sqrt(n). Each recent
+ * transaction is therefore scored as it is ingested, just before its amount is added, and
+ * later lookups for it return that score. The same record tells a bootstrap replay of a
+ * recent transaction from its first ingest, so its amount is only added once.
+ */
+@Component
+public class AmountStatistics implements TransactionIngestListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AmountStatistics.class);
+    
+    private record Key(String customerId, String mcc) {}
+    
+    private final Cache<Key, AmountStats> stats;
+    // Score of each recent transaction before it joined the statistics; NaN when there was too little history
+    private final Cache<String, Double> ingestScores;
+    private final long minSamples;
+    private final Duration scoreTtl;
+    
+    public AmountStatistics(@Value("${aegis.risk.amounts.max-keys:2000000}") long maxKeys,
+                            @Value("${aegis.risk.amounts.min-samples:5}") long minSamples,
+                            @Value("${aegis.risk.amounts.scored-txns:1000000}") long maxScoredTxns,
+                            @Value("${aegis.risk.amounts.score-ttl-hours:72}") long scoreTtlHours) {
+        this.minSamples = minSamples;
+        this.scoreTtl = Duration.ofHours(scoreTtlHours);
+        this.stats = Caffeine.newBuilder()
+            .maximumSize(maxKeys)
+            .build();
+        this.ingestScores = Caffeine.newBuilder()
+            .maximumSize(maxScoredTxns)
+            .expireAfterWrite(scoreTtl)
+            .build();
+        
+        logger.info("Amount statistics initialized: maxKeys={}, minSamples={}, scoredTxns={}, scoreTtl={}h",
+                   maxKeys, minSamples, maxScoredTxns, scoreTtlHours);
+    }
+    
+    @Override
+    public void onTransactionsIngested(List<Transaction> transactions) {
+        for (Transaction txn : transactions) {
+            if (txn.getCustomerId() == null || txn.getAmount() == null) {
+                continue;
+            }
+            long amount = Math.abs(txn.getAmount());
+            if (txn.getId() != null && txn.getTs() != null
+                    && txn.getTs().toInstant().isAfter(Instant.now().minus(scoreTtl))) {
+                // Kept from the first ingest; a bootstrap replay must not overwrite it with a score that includes itself
+                OptionalDouble before = currentZScore(txn.getCustomerId(), txn.getMcc(), amount);
+                Double previous = ingestScores.asMap().putIfAbsent(txn.getId(), before.isPresent() ? before.getAsDouble() : Double.NaN);
+                if (previous != null) {
+                    // Replayed by the bootstrap after live ingest; the amount is already counted
+                    continue;
+                }
+            }
+            stats.get(new Key(txn.getCustomerId(), null), key -> new AmountStats()).add(amount);
+            if (txn.getMcc() != null) {
+                stats.get(new Key(txn.getCustomerId(), txn.getMcc()), key -> new AmountStats()).add(amount);
+            }
+        }
+    }
+    
+    /**
+     * Amount distribution within the MCC, or across all MCCs when {@code mcc} is null
+     */
+    public Optional<AmountProfile> profile(String customerId, String mcc) {
+        AmountStats amounts = stats.getIfPresent(new Key(customerId, mcc));
+        return amounts == null ? Optional.empty() : Optional.of(amounts.profile());
+    }
+    
+    /**
+     * Standard score of a transaction's amount against the customer's other amounts in the
+     * MCC, falling back to all of the customer's other amounts; empty when neither has
+     * enough samples. A recently ingested transaction gets the score it had just before it
+     * was added; any other is scored against the current statistics.
+     */
+    public OptionalDouble zScore(String customerId, String txnId, String mcc, long amount) {
+        Double scored = txnId != null ? ingestScores.getIfPresent(txnId) : null;
+        if (scored != null) {
+            return scored.isNaN() ? OptionalDouble.empty() : OptionalDouble.of(scored);
+        }
+        return currentZScore(customerId, mcc, amount);
+    }
+    
+    private OptionalDouble currentZScore(String customerId, String mcc, long amount) {
+        AmountStats amounts = mcc != null ? stats.getIfPresent(new Key(customerId, mcc)) : null;
+        if (amounts == null || amounts.count() < minSamples) {
+            amounts = stats.getIfPresent(new Key(customerId, null));
+        }
+        if (amounts == null || amounts.count() < minSamples) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(amounts.profile().zScore(Math.abs(amount)));
+    }
+}
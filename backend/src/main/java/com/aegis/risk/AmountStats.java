@@ -0,0 +1,32 @@
+package com.aegis.risk;
+
+/**
+ * Running amount statistics: mean and variance by Welford's method, median and 95th
+ * percentile by P-square estimation. O(1) per update and lookup.
+ */
+final class AmountStats {
+    
+    private long count;
+    private double mean;
+    private double m2;
+    private final P2Quantile p50 = new P2Quantile(0.5);
+    private final P2Quantile p95 = new P2Quantile(0.95);
+    
+    synchronized void add(long amount) {
+        count++;
+        double delta = amount - mean;
+        mean += delta / count;
+        m2 += delta * (amount - mean);
+        p50.add(amount);
+        p95.add(amount);
+    }
+    
+    synchronized long count() {
+        return count;
+    }
+    
+    synchronized AmountProfile profile() {
+        double stdDev = count > 1 ? Math.sqrt(m2 / (count - 1)) : 0;
+        return new AmountProfile(count, mean, stdDev, p50.estimate(), p95.estimate());
+    }
+}
@@ -0,0 +1,61 @@
+package com.aegis.risk;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The devices and MCCs a customer has ever used, each with its first use, and the devices
+ * the customer has registered as trusted. Lookups are single hash probes.
+ */
+public final class CustomerDeviceProfile {
+    
+    private final Map<String, Long> deviceFirstSeen = new HashMap<>();
+    private final Map<String, Long> mccFirstSeen = new HashMap<>();
+    private final Set<String> trustedDevices = new HashSet<>();
+    
+    synchronized void recordDevice(String deviceId, long firstSeen, boolean trusted) {
+        deviceFirstSeen.merge(deviceId, firstSeen, Math::min);
+        if (trusted) {
+            trustedDevices.add(deviceId);
+        }
+    }
+    
+    synchronized void recordMcc(String mcc, long firstSeen) {
+        mccFirstSeen.merge(mcc, firstSeen, Math::min);
+    }
+    
+    synchronized boolean knowsDevice(String deviceId) {
+        return deviceFirstSeen.containsKey(deviceId);
+    }
+    
+    public synchronized boolean isTrusted(String deviceId) {
+        return trustedDevices.contains(deviceId);
+    }
+    
+    /**
+     * Whether the device is untrusted and was first used no earlier than {@code window} before
+     * {@code at}. A device the customer has never used is new.
+     */
+    public synchronized boolean isNewDevice(String deviceId, Instant at, Duration window) {
+        if (deviceId == null || trustedDevices.contains(deviceId)) {
+            return false;
+        }
+        Long firstSeen = deviceFirstSeen.get(deviceId);
+        return firstSeen == null || firstSeen >= at.minus(window).toEpochMilli();
+    }
+    
+    /**
+     * Whether the customer had never used the MCC before {@code at}
+     */
+    public synchronized boolean isNewMcc(String mcc, Instant at) {
+        if (mcc == null) {
+            return false;
+        }
+        Long firstSeen = mccFirstSeen.get(mcc);
+        return firstSeen == null || firstSeen >= at.toEpochMilli();
+    }
+}
@@ -0,0 +1,18 @@
+package com.aegis.risk;
+
+import java.time.Instant;
+
+/**
+ * Point-in-time copy of a customer's rolling features. Amounts are in the smallest
+ * currency unit, like {@link com.aegis.entity.Transaction#getAmount()}.
+ */
+public record CustomerFeatureSnapshot(int txnCount24h, long spend24h, int txnCount7d, long spend7d,
+                                      int txnCount30d, long spend30d, int distinctDevices7d,
+                                      int distinctMccs7d, int distinctCities7d, LastLocation lastLocation) {
+    
+    public record LastLocation(double lat, double lon, String city, String country, Instant seenAt) {}
+    
+    public long avgDailySpend30d() {
+        return spend30d / 30;
+    }
+}
@@ -0,0 +1,61 @@
+package com.aegis.risk;
+
+import com.aegis.entity.Transaction;
+import com.aegis.service.TransactionIngestListener;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-memory rolling features per customer, maintained from the ingest stream and the
+ * startup bootstrap. Triage reads a snapshot instead of re-deriving the same counts
+ * from transaction history on every request. The buckets have no per-transaction
+ * dedupe; they rely on each transaction being delivered once (see
+ * {@link com.aegis.service.TransactionBootstrap}).
+ */
+@Component
+public class CustomerFeatureStore implements TransactionIngestListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CustomerFeatureStore.class);
+    
+    private final Cache<String, CustomerFeatures> features;
+    private final int trackedValues;
+    
+    public CustomerFeatureStore(@Value("${aegis.risk.features.max-customers:1000000}") long maxCustomers,
+                                @Value("${aegis.risk.features.tracked-values:32}") int trackedValues) {
+        this.trackedValues = trackedValues;
+        this.features = Caffeine.newBuilder()
+            .maximumSize(maxCustomers)
+            .build();
+        
+        logger.info("Customer feature store initialized: maxCustomers={}, trackedValues={}",
+                   maxCustomers, trackedValues);
+    }
+    
+    @Override
+    public void onTransactionsIngested(List<Transaction> transactions) {
+        for (Transaction txn : transactions) {
+            if (txn.getCustomerId() == null || txn.getTs() == null) {
+                continue;
+            }
+            features.get(txn.getCustomerId(), key -> new CustomerFeatures(trackedValues)).add(txn);
+        }
+    }
+    
+    /**
+     * Current features, or empty when nothing is known about the customer
+     */
+    public Optional<CustomerFeatureSnapshot> snapshot(String customerId) {
+        CustomerFeatures customer = features.getIfPresent(customerId);
+        if (customer == null) {
+            return Optional.empty();
+        }
+        return Optional.of(customer.snapshot(System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,140 @@
+package com.aegis.risk;
+
+import com.aegis.entity.Transaction;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rolling aggregates for one customer, updated one transaction at a time. Spend is kept
+ * in hourly buckets for the last day and daily buckets for the last 30 days; devices,
+ * MCCs and cities keep their last-seen time in small LRU maps.
+ */
+final class CustomerFeatures {
+    
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    private static final int HOURS = 24;
+    private static final int DAYS = 30;
+    
+    private final long[] hourAmount = new long[HOURS];
+    private final int[] hourCount = new int[HOURS];
+    private final long[] hourIndex = new long[HOURS];
+    private final long[] dayAmount = new long[DAYS];
+    private final int[] dayCount = new int[DAYS];
+    private final long[] dayIndex = new long[DAYS];
+    
+    private final Map<String, Long> devices;
+    private final Map<String, Long> mccs;
+    private final Map<String, Long> cities;
+    
+    private long lastGeoMillis = Long.MIN_VALUE;
+    private double lastLat;
+    private double lastLon;
+    private String lastCity;
+    private String lastCountry;
+    
+    CustomerFeatures(int trackedValues) {
+        this.devices = lruMap(trackedValues);
+        this.mccs = lruMap(trackedValues);
+        this.cities = lruMap(trackedValues);
+    }
+    
+    synchronized void add(Transaction txn) {
+        long ts = txn.getTs().toInstant().toEpochMilli();
+        long amount = txn.getAmount() != null ? txn.getAmount() : 0L;
+        addToBucket(hourAmount, hourCount, hourIndex, Math.floorDiv(ts, HOUR_MILLIS), amount);
+        addToBucket(dayAmount, dayCount, dayIndex, Math.floorDiv(ts, DAY_MILLIS), amount);
+        
+        touch(devices, txn.getDeviceId(), ts);
+        touch(mccs, txn.getMcc(), ts);
+        touch(cities, txn.getGeoCity(), ts);
+        
+        if (txn.getGeoLat() != null && txn.getGeoLon() != null && ts >= lastGeoMillis) {
+            lastGeoMillis = ts;
+            lastLat = txn.getGeoLat().doubleValue();
+            lastLon = txn.getGeoLon().doubleValue();
+            lastCity = txn.getGeoCity();
+            lastCountry = txn.getGeoCountry();
+        }
+    }
+    
+    synchronized CustomerFeatureSnapshot snapshot(long nowMillis) {
+        long nowHour = Math.floorDiv(nowMillis, HOUR_MILLIS);
+        long nowDay = Math.floorDiv(nowMillis, DAY_MILLIS);
+        
+        int count24h = 0;
+        long spend24h = 0;
+        for (int i = 0; i < HOURS; i++) {
+            if (hourIndex[i] > nowHour - HOURS && hourIndex[i] <= nowHour) {
+                count24h += hourCount[i];
+                spend24h += hourAmount[i];
+            }
+        }
+        
+        int count7d = 0;
+        long spend7d = 0;
+        int count30d = 0;
+        long spend30d = 0;
+        for (int i = 0; i < DAYS; i++) {
+            if (dayIndex[i] > nowDay - DAYS && dayIndex[i] <= nowDay) {
+                count30d += dayCount[i];
+                spend30d += dayAmount[i];
+                if (dayIndex[i] > nowDay - 7) {
+                    count7d += dayCount[i];
+                    spend7d += dayAmount[i];
+                }
+            }
+        }
+        
+        long weekAgo = nowMillis - 7 * DAY_MILLIS;
+        
+        CustomerFeatureSnapshot.LastLocation lastLocation = lastGeoMillis == Long.MIN_VALUE ? null
+            : new CustomerFeatureSnapshot.LastLocation(lastLat, lastLon, lastCity, lastCountry, Instant.ofEpochMilli(lastGeoMillis));
+        
+        return new CustomerFeatureSnapshot(count24h, spend24h, count7d, spend7d, count30d, spend30d,
+            countSince(devices, weekAgo), countSince(mccs, weekAgo), countSince(cities, weekAgo),
+            lastLocation);
+    }
+    
+    private static void addToBucket(long[] amounts, int[] counts, long[] index, long bucket, long amount) {
+        int slot = (int) Math.floorMod(bucket, (long) index.length);
+        if (index[slot] != bucket) {
+            if (index[slot] > bucket) {
+                // Older than the window the slot currently covers
+                return;
+            }
+            index[slot] = bucket;
+            amounts[slot] = 0;
+            counts[slot] = 0;
+        }
+        amounts[slot] += amount;
+        counts[slot]++;
+    }
+    
+    private static void touch(Map<String, Long> lastSeen, String value, long ts) {
+        if (value != null) {
+            lastSeen.merge(value, ts, Math::max);
+        }
+    }
+    
+    private static int countSince(Map<String, Long> lastSeen, long since) {
+        int count = 0;
+        for (long seenAt : lastSeen.values()) {
+            if (seenAt >= since) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private static <V> Map<String, V> lruMap(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
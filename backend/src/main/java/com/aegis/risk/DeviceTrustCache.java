@@ -0,0 +1,102 @@
+package com.aegis.risk;
+
+import com.aegis.entity.Device;
+import com.aegis.entity.Transaction;
+import com.aegis.repository.DeviceRepository;
+import com.aegis.repository.TransactionRepository;
+import com.aegis.service.TransactionIngestListener;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Per-customer device and MCC history for novelty checks. A customer's profile is built
+ * on first use from the devices table and two grouped queries over their transactions
+ * (first use per device and per MCC), so no history rows are loaded. Ingested transactions
+ * are folded into profiles already in the cache; customers not yet cached are left to load
+ * lazily. A transaction on a device the cached profile has not seen drops the profile, so
+ * the next lookup re-reads the devices table for its registration and trust; the TTL picks
+ * up trust changes to known devices.
+ */
+@Component
+public class DeviceTrustCache implements TransactionIngestListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DeviceTrustCache.class);
+    
+    private final Cache<String, CustomerDeviceProfile> profiles;
+    private final DeviceRepository deviceRepository;
+    private final TransactionRepository transactionRepository;
+    
+    public DeviceTrustCache(@Value("${aegis.risk.devices.max-customers:100000}") long maxCustomers,
+                            @Value("${aegis.risk.devices.ttl:600}") long ttlSeconds,
+                            DeviceRepository deviceRepository,
+                            TransactionRepository transactionRepository) {
+        this.deviceRepository = deviceRepository;
+        this.transactionRepository = transactionRepository;
+        this.profiles = Caffeine.newBuilder()
+            .maximumSize(maxCustomers)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .build();
+        
+        logger.info("Device trust cache initialized: maxCustomers={}, ttl={}s", maxCustomers, ttlSeconds);
+    }
+    
+    @Override
+    public void onTransactionsIngested(List<Transaction> transactions) {
+        for (Transaction txn : transactions) {
+            if (txn.getCustomerId() == null || txn.getTs() == null) {
+                continue;
+            }
+            CustomerDeviceProfile profile = profiles.getIfPresent(txn.getCustomerId());
+            if (profile != null && txn.getDeviceId() != null && !profile.knowsDevice(txn.getDeviceId())) {
+                // The device may have been registered or trusted since the profile was loaded
+                invalidate(txn.getCustomerId());
+            } else if (profile != null) {
+                long ts = txn.getTs().toInstant().toEpochMilli();
+                if (txn.getDeviceId() != null) {
+                    profile.recordDevice(txn.getDeviceId(), ts, false);
+                }
+                if (txn.getMcc() != null) {
+                    profile.recordMcc(txn.getMcc(), ts);
+                }
+            }
+        }
+    }
+    
+    /**
+     * The customer's device and MCC history, loaded from the database on first use
+     */
+    public CustomerDeviceProfile profile(String customerId) {
+        return profiles.get(customerId, this::load);
+    }
+    
+    /**
+     * Drops the customer's profile so the next lookup reloads it, e.g. after device trust changes
+     */
+    public void invalidate(String customerId) {
+        profiles.invalidate(customerId);
+    }
+    
+    private CustomerDeviceProfile load(String customerId) {
+        CustomerDeviceProfile profile = new CustomerDeviceProfile();
+        for (Device device : deviceRepository.findByCustomerId(customerId)) {
+            // A registered device counts as seen from its registration
+            long registered = device.getCreatedAt() != null ? device.getCreatedAt().toInstant().toEpochMilli() : Long.MAX_VALUE;
+            profile.recordDevice(device.getId(), registered, Boolean.TRUE.equals(device.getIsTrusted()));
+        }
+        for (Object[] row : transactionRepository.findFirstUseOfDevicesByCustomerId(customerId)) {
+            profile.recordDevice((String) row[0], ((OffsetDateTime) row[1]).toInstant().toEpochMilli(), false);
+        }
+        for (Object[] row : transactionRepository.findFirstUseOfMccsByCustomerId(customerId)) {
+            profile.recordMcc((String) row[0], ((OffsetDateTime) row[1]).toInstant().toEpochMilli());
+        }
+        return profile;
+    }
+}
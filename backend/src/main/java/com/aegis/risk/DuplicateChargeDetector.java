@@ -0,0 +1,151 @@
+package com.aegis.risk;
+
+import com.aegis.entity.Transaction;
+import com.aegis.metrics.MetricsService;
+import com.aegis.service.TransactionIngestListener;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Finds preauthorization/capture duplicates: a pending and a captured charge with the same
+ * card, merchant and amount within the configured window. Charges are keyed by a 64-bit
+ * hash of (card, merchant, amount), so matching is a primitive comparison and strings are
+ * only checked to rule out hash collisions. Every ingested charge is matched as it arrives;
+ * {@link #match(List)} does the same for an arbitrary list in a single pass.
+ */
+@Component
+public class DuplicateChargeDetector implements TransactionIngestListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateChargeDetector.class);
+    private static final String PENDING = "pending";
+    private static final String CAPTURED = "captured";
+    
+    private final Cache<String, RecentCharges> charges;
+    private final long windowMillis;
+    private final int trackedCharges;
+    private final int maxPairs;
+    private final MetricsService metricsService;
+    
+    public DuplicateChargeDetector(@Value("${aegis.risk.duplicates.window-hours:168}") long windowHours,
+                                   @Value("${aegis.risk.duplicates.max-customers:1000000}") long maxCustomers,
+                                   @Value("${aegis.risk.duplicates.tracked-charges:64}") int trackedCharges,
+                                   @Value("${aegis.risk.duplicates.max-pairs:16}") int maxPairs,
+                                   MetricsService metricsService) {
+        this.windowMillis = Duration.ofHours(windowHours).toMillis();
+        this.trackedCharges = trackedCharges;
+        this.maxPairs = maxPairs;
+        this.metricsService = metricsService;
+        this.charges = Caffeine.newBuilder()
+            .maximumSize(maxCustomers)
+            .build();
+        
+        logger.info("Duplicate charge detector initialized: window={}h, maxCustomers={}, trackedCharges={}, maxPairs={}",
+                   windowHours, maxCustomers, trackedCharges, maxPairs);
+    }
+    
+    @Override
+    public void onTransactionsIngested(List<Transaction> transactions) {
+        int detected = 0;
+        for (Transaction txn : transactions) {
+            if (!isChargeable(txn) || txn.getCustomerId() == null) {
+                continue;
+            }
+            String cardId = cardOf(txn);
+            DuplicateChargePair pair = charges.get(txn.getCustomerId(), key -> new RecentCharges(trackedCharges, maxPairs))
+                .add(key(cardId, txn.getMerchant(), txn.getAmount()), txn.getId(), cardId, txn.getMerchant(),
+                     txn.getAmount(), PENDING.equals(txn.getStatus()), txn.getTs().toInstant().toEpochMilli(), windowMillis);
+            if (pair != null) {
+                detected++;
+            }
+        }
+        if (detected > 0) {
+            metricsService.recordDuplicateChargesDetected(detected);
+        }
+    }
+    
+    /**
+     * The detected pair the transaction belongs to, as either the pending or the captured charge
+     */
+    public Optional<DuplicateChargePair> pairOf(String customerId, String txnId) {
+        RecentCharges customer = charges.getIfPresent(customerId);
+        return customer == null ? Optional.empty() : Optional.ofNullable(customer.pairOf(txnId));
+    }
+    
+    /**
+     * Pairs up the pending and captured charges in the list in one pass, in any order.
+     * Each charge is used in at most one pair, with the closest counterpart seen so far.
+     */
+    public List<DuplicateChargePair> match(List<Transaction> transactions) {
+        int n = transactions.size();
+        LongChainIndex pendingIndex = new LongChainIndex(n);
+        LongChainIndex capturedIndex = new LongChainIndex(n);
+        int[] next = new int[n];
+        boolean[] matched = new boolean[n];
+        List<DuplicateChargePair> pairs = new ArrayList<>();
+        
+        for (int i = 0; i < n; i++) {
+            Transaction txn = transactions.get(i);
+            if (!isChargeable(txn)) {
+                continue;
+            }
+            String cardId = cardOf(txn);
+            long key = key(cardId, txn.getMerchant(), txn.getAmount());
+            long ts = txn.getTs().toInstant().toEpochMilli();
+            boolean isPending = PENDING.equals(txn.getStatus());
+            
+            int best = -1;
+            long bestGap = Long.MAX_VALUE;
+            for (int j = (isPending ? capturedIndex : pendingIndex).head(key); j >= 0; j = next[j]) {
+                if (matched[j]) {
+                    continue;
+                }
+                Transaction other = transactions.get(j);
+                long gap = Math.abs(ts - other.getTs().toInstant().toEpochMilli());
+                if (gap <= windowMillis && gap < bestGap && other.getAmount().equals(txn.getAmount())
+                        && cardOf(other).equals(cardId) && other.getMerchant().equals(txn.getMerchant())) {
+                    best = j;
+                    bestGap = gap;
+                }
+            }
+            
+            if (best >= 0) {
+                matched[best] = true;
+                matched[i] = true;
+                Transaction pending = isPending ? txn : transactions.get(best);
+                Transaction captured = isPending ? transactions.get(best) : txn;
+                pairs.add(new DuplicateChargePair(pending.getId(), captured.getId(), cardId, txn.getMerchant(),
+                    txn.getAmount(), captured.getTs().toInstant(), bestGap / 1000));
+            } else {
+                (isPending ? pendingIndex : capturedIndex).push(key, i, next);
+            }
+        }
+        return pairs;
+    }
+    
+    private static boolean isChargeable(Transaction txn) {
+        return (PENDING.equals(txn.getStatus()) || CAPTURED.equals(txn.getStatus()))
+            && txn.getId() != null && txn.getMerchant() != null && txn.getAmount() != null && txn.getTs() != null;
+    }
+    
+    /**
+     * Charges without a card are matched per customer
+     */
+    private static String cardOf(Transaction txn) {
+        return txn.getCardId() != null ? txn.getCardId() : "";
+    }
+    
+    private static long key(String cardId, String merchant, long amount) {
+        long hash = (long) cardId.hashCode() << 32 | (merchant.hashCode() & 0xFFFFFFFFL);
+        hash ^= amount * 0xC2B2AE3D27D4EB4FL;
+        return hash ^ (hash >>> 29);
+    }
+}
@@ -0,0 +1,14 @@
+package com.aegis.risk;
+
+import java.time.Instant;
+
+/**
+ * A pending authorization and a captured charge on the same card, at the same merchant,
+ * for the same amount, close enough in time to be one purchase seen twice
+ *
+ * @param amount     in the smallest currency unit
+ * @param gapSeconds time between the two transactions
+ */
+public record DuplicateChargePair(String pendingTxnId, String capturedTxnId, String cardId, String merchant,
+                                  long amount, Instant capturedAt, long gapSeconds) {
+}
@@ -0,0 +1,12 @@
+package com.aegis.risk;
+
+/**
+ * Result of comparing a transaction's location with its neighbours in the customer's history
+ *
+ * @param violation       true when the implied travel speed is physically implausible
+ * @param distanceKm      great-circle distance to the compared transaction
+ * @param speedKmh        implied travel speed between the two transactions
+ * @param elapsedSeconds  time between the two transactions
+ */
+public record GeoVelocityCheck(boolean violation, double distanceKm, double speedKmh, long elapsedSeconds) {
+}
@@ -0,0 +1,82 @@
+package com.aegis.risk;
+
+import com.aegis.entity.Transaction;
+import com.aegis.service.TransactionIngestListener;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Detects impossible travel from real transaction coordinates. Every ingested transaction
+ * with a location is appended to a small per-customer ring, so a triage check is a
+ * constant-time comparison with the neighbouring entries instead of a history query.
+ */
+@Component
+public class GeoVelocityEngine implements TransactionIngestListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GeoVelocityEngine.class);
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    
+    private final Cache<String, LocationHistory> histories;
+    private final int historySize;
+    private final double maxSpeedKmh;
+    private final double minDistanceKm;
+    
+    public GeoVelocityEngine(@Value("${aegis.risk.geo-velocity.history-size:16}") int historySize,
+                             @Value("${aegis.risk.geo-velocity.max-customers:1000000}") long maxCustomers,
+                             @Value("${aegis.risk.geo-velocity.max-speed-kmh:900}") double maxSpeedKmh,
+                             @Value("${aegis.risk.geo-velocity.min-distance-km:100}") double minDistanceKm) {
+        this.historySize = historySize;
+        this.maxSpeedKmh = maxSpeedKmh;
+        this.minDistanceKm = minDistanceKm;
+        this.histories = Caffeine.newBuilder()
+            .maximumSize(maxCustomers)
+            .build();
+        
+        logger.info("Geo-velocity engine initialized: historySize={}, maxCustomers={}, maxSpeed={}km/h, minDistance={}km",
+                   historySize, maxCustomers, maxSpeedKmh, minDistanceKm);
+    }
+    
+    @Override
+    public void onTransactionsIngested(List<Transaction> transactions) {
+        for (Transaction txn : transactions) {
+            if (txn.getCustomerId() == null || txn.getGeoLat() == null || txn.getGeoLon() == null || txn.getTs() == null) {
+                continue;
+            }
+            record(txn.getCustomerId(), txn.getId(), txn.getGeoLat().doubleValue(), txn.getGeoLon().doubleValue(),
+                   txn.getTs().toInstant().toEpochMilli());
+        }
+    }
+    
+    public void record(String customerId, String txnId, double lat, double lon, long tsMillis) {
+        histories.get(customerId, key -> new LocationHistory(historySize))
+            .add(txnId, lat, lon, tsMillis);
+    }
+    
+    /**
+     * Checks the given transaction, or the customer's latest one when txnId is null.
+     * Empty when the transaction has no recorded location or fewer than two locations
+     * are known for the customer.
+     */
+    public Optional<GeoVelocityCheck> check(String customerId, String txnId) {
+        LocationHistory history = histories.getIfPresent(customerId);
+        if (history == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(history.check(txnId, maxSpeedKmh, minDistanceKm));
+    }
+    
+    static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,118 @@
+package com.aegis.risk;
+
+/**
+ * Most recent transaction locations of one customer, oldest first, held in a fixed-size
+ * ring of primitive arrays. Appends in timestamp order are O(1); the occasional
+ * late-arriving transaction is shifted into place. Transactions are found by the hash of
+ * their id and confirmed against the id itself, so a hash collision cannot drop a location
+ * as a replay or check the wrong entry.
+ */
+final class LocationHistory {
+    
+    private final long[] tsMillis;
+    private final double[] lat;
+    private final double[] lon;
+    private final int[] txnHash;
+    private final String[] txnIds;
+    private int head;
+    private int size;
+    
+    LocationHistory(int capacity) {
+        this.tsMillis = new long[capacity];
+        this.lat = new double[capacity];
+        this.lon = new double[capacity];
+        this.txnHash = new int[capacity];
+        this.txnIds = new String[capacity];
+    }
+    
+    synchronized void add(String txnId, double latitude, double longitude, long timestamp) {
+        if (indexOf(txnId) >= 0) {
+            // Replayed by the bootstrap after live ingest, or ingested twice
+            return;
+        }
+        int capacity = tsMillis.length;
+        
+        // Logical position after every entry that is not newer
+        int position = size;
+        while (position > 0 && tsMillis[physical(position - 1)] > timestamp) {
+            position--;
+        }
+        if (size == capacity) {
+            if (position == 0) {
+                // Older than everything we still keep
+                return;
+            }
+            // Drop the oldest entry to make room
+            head = (head + 1) % capacity;
+            size--;
+            position--;
+        }
+        for (int i = size; i > position; i--) {
+            copy(physical(i - 1), physical(i));
+        }
+        int slot = physical(position);
+        tsMillis[slot] = timestamp;
+        lat[slot] = latitude;
+        lon[slot] = longitude;
+        txnHash[slot] = txnId.hashCode();
+        txnIds[slot] = txnId;
+        size++;
+    }
+    
+    /**
+     * Checks the transaction against the entries just before and after it, or the newest
+     * entry against its predecessor when no transaction is given. Returns the fastest implied
+     * movement, or null when the transaction is not in the ring or there is nothing to compare.
+     */
+    synchronized GeoVelocityCheck check(String txnId, double maxSpeedKmh, double minDistanceKm) {
+        int index = txnId != null ? indexOf(txnId) : size - 1;
+        if (index < 0) {
+            return null;
+        }
+        
+        GeoVelocityCheck worst = null;
+        if (index > 0) {
+            worst = compare(physical(index - 1), physical(index), maxSpeedKmh, minDistanceKm);
+        }
+        if (index < size - 1) {
+            GeoVelocityCheck next = compare(physical(index), physical(index + 1), maxSpeedKmh, minDistanceKm);
+            if (worst == null || next.speedKmh() > worst.speedKmh()) {
+                worst = next;
+            }
+        }
+        return worst;
+    }
+    
+    private GeoVelocityCheck compare(int from, int to, double maxSpeedKmh, double minDistanceKm) {
+        double distanceKm = GeoVelocityEngine.haversineKm(lat[from], lon[from], lat[to], lon[to]);
+        long elapsedMillis = tsMillis[to] - tsMillis[from];
+        // Same-second transactions are treated as one second apart to keep the speed finite
+        double elapsedHours = Math.max(elapsedMillis, 1000L) / 3_600_000.0;
+        double speedKmh = distanceKm / elapsedHours;
+        boolean violation = distanceKm >= minDistanceKm && speedKmh > maxSpeedKmh;
+        return new GeoVelocityCheck(violation, distanceKm, speedKmh, elapsedMillis / 1000);
+    }
+    
+    private int indexOf(String txnId) {
+        int hash = txnId.hashCode();
+        for (int i = size - 1; i >= 0; i--) {
+            int slot = physical(i);
+            if (txnHash[slot] == hash && txnIds[slot].equals(txnId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private int physical(int logical) {
+        return (head + logical) % tsMillis.length;
+    }
+    
+    private void copy(int from, int to) {
+        tsMillis[to] = tsMillis[from];
+        lat[to] = lat[from];
+        lon[to] = lon[from];
+        txnHash[to] = txnHash[from];
+        txnIds[to] = txnIds[from];
+    }
+}
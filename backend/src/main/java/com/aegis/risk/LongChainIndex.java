@@ -0,0 +1,57 @@
+package com.aegis.risk;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash index from a primitive long key to a chain of entry positions.
+ * Entries with the same key are linked through a caller-owned {@code next} array, so
+ * building the index over n entries allocates three arrays and no per-entry objects.
+ */
+final class LongChainIndex {
+    
+    private static final int EMPTY = -1;
+    
+    private final long[] keys;
+    private final int[] heads;
+    private final int mask;
+    
+    LongChainIndex(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedKeys * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.heads = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(heads, EMPTY);
+    }
+    
+    /**
+     * First entry position for the key, or -1 if none
+     */
+    int head(long key) {
+        int slot = slot(key);
+        while (heads[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return heads[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+    
+    /**
+     * Prepends an entry to the key's chain, recording the previous head in {@code next}
+     */
+    void push(long key, int entry, int[] next) {
+        int slot = slot(key);
+        while (heads[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        next[entry] = heads[slot];
+        keys[slot] = key;
+        heads[slot] = entry;
+    }
+    
+    private int slot(long key) {
+        // Fibonacci hashing spreads clustered keys across the table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,104 @@
+package com.aegis.risk;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A customer's most recent pending and captured charges in a fixed ring, plus the
+ * duplicate pairs found among them. Matching a new charge compares primitive keys
+ * across the ring; strings are only compared to confirm a key match.
+ */
+final class RecentCharges {
+    
+    private final long[] keys;
+    private final long[] timestamps;
+    private final long[] amounts;
+    private final boolean[] pending;
+    private final boolean[] matched;
+    private final String[] txnIds;
+    private final String[] cardIds;
+    private final String[] merchants;
+    private final Deque<DuplicateChargePair> pairs = new ArrayDeque<>();
+    private final int maxPairs;
+    private int next;
+    private int size;
+    
+    RecentCharges(int capacity, int maxPairs) {
+        this.keys = new long[capacity];
+        this.timestamps = new long[capacity];
+        this.amounts = new long[capacity];
+        this.pending = new boolean[capacity];
+        this.matched = new boolean[capacity];
+        this.txnIds = new String[capacity];
+        this.cardIds = new String[capacity];
+        this.merchants = new String[capacity];
+        this.maxPairs = maxPairs;
+    }
+    
+    /**
+     * Matches the charge against the unmatched charges of the opposite status and records it.
+     * Returns the new pair, or null when the charge has no counterpart yet.
+     */
+    synchronized DuplicateChargePair add(long key, String txnId, String cardId, String merchant, long amount,
+                                         boolean isPending, long tsMillis, long windowMillis) {
+        int best = -1;
+        long bestGap = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != key) {
+                continue;
+            }
+            if (txnId.equals(txnIds[i])) {
+                // Replayed by the bootstrap after live ingest, or ingested twice
+                return null;
+            }
+            if (matched[i] || pending[i] == isPending) {
+                continue;
+            }
+            long gap = Math.abs(tsMillis - timestamps[i]);
+            if (gap <= windowMillis && gap < bestGap && amounts[i] == amount
+                    && cardIds[i].equals(cardId) && merchants[i].equals(merchant)) {
+                best = i;
+                bestGap = gap;
+            }
+        }
+        
+        DuplicateChargePair pair = null;
+        if (best >= 0) {
+            matched[best] = true;
+            pair = isPending
+                ? new DuplicateChargePair(txnId, txnIds[best], cardId, merchant, amount,
+                                          Instant.ofEpochMilli(timestamps[best]), bestGap / 1000)
+                : new DuplicateChargePair(txnIds[best], txnId, cardId, merchant, amount,
+                                          Instant.ofEpochMilli(tsMillis), bestGap / 1000);
+            if (pairs.size() == maxPairs) {
+                pairs.removeFirst();
+            }
+            pairs.addLast(pair);
+        }
+        
+        keys[next] = key;
+        timestamps[next] = tsMillis;
+        amounts[next] = amount;
+        pending[next] = isPending;
+        matched[next] = best >= 0;
+        txnIds[next] = txnId;
+        cardIds[next] = cardId;
+        merchants[next] = merchant;
+        next = (next + 1) % keys.length;
+        size = Math.min(size + 1, keys.length);
+        return pair;
+    }
+    
+    /**
+     * The remembered pair the transaction is the pending or captured half of, or null
+     */
+    synchronized DuplicateChargePair pairOf(String txnId) {
+        for (DuplicateChargePair pair : pairs) {
+            if (txnId.equals(pair.pendingTxnId()) || txnId.equals(pair.capturedTxnId())) {
+                return pair;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,182 @@
+package com.aegis.risk.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the customer-device-card-merchant graph from a stream of transactions. Every
+ * entity gets a dense int id and each customer-entity link is packed into one long, so
+ * the graph is held in primitive arrays: sorted distinct edge lists, fan-out counts and a
+ * union-find forest over customers, devices and cards. Merchants are left out of the
+ * components, since any popular merchant would join most customers into one.
+ */
+final class EntityGraphBuilder {
+    
+    static final int SHARED_DEVICE = 1;
+    static final int SHARED_CARD = 1 << 1;
+    static final int LARGE_CLUSTER = 1 << 2;
+    static final int NEW_MERCHANT_BURST = 1 << 3;
+    
+    /**
+     * @param minDeviceCustomers   customers on one device that make it a shared device
+     * @param minCardCustomers     customers on one card that make it a shared card
+     * @param minClusterCustomers  customers in a component that make it suspicious by size alone
+     * @param minMerchantCustomers customers charged by a new merchant that make it a burst
+     * @param newMerchantMillis    how recently a merchant must have first appeared to be new
+     */
+    record Thresholds(int minDeviceCustomers, int minCardCustomers, int minClusterCustomers,
+                      int minMerchantCustomers, long newMerchantMillis) {}
+    
+    private final IdMap customers = new IdMap();
+    private final IdMap devices = new IdMap();
+    private final IdMap cards = new IdMap();
+    private final IdMap merchants = new IdMap();
+    private final LongList deviceEdges = new LongList();
+    private final LongList cardEdges = new LongList();
+    private final LongList merchantEdges = new LongList();
+    private long[] merchantFirstSeen = new long[256];
+    private long transactions;
+    
+    void add(String customerId, String deviceId, String merchant, String cardId, long ts) {
+        if (customerId == null) {
+            return;
+        }
+        transactions++;
+        int customer = customers.id(customerId);
+        if (deviceId != null) {
+            deviceEdges.add(edge(customer, devices.id(deviceId)));
+        }
+        if (cardId != null) {
+            cardEdges.add(edge(customer, cards.id(cardId)));
+        }
+        if (merchant != null) {
+            int known = merchants.size();
+            int id = merchants.id(merchant);
+            if (id == merchantFirstSeen.length) {
+                merchantFirstSeen = Arrays.copyOf(merchantFirstSeen, id * 2);
+            }
+            merchantFirstSeen[id] = id == known ? ts : Math.min(merchantFirstSeen[id], ts);
+            merchantEdges.add(edge(customer, id));
+        }
+    }
+    
+    FraudRingIndex build(Thresholds thresholds, long nowMillis) {
+        int customerCount = customers.size();
+        int deviceBase = customerCount;
+        int cardBase = deviceBase + devices.size();
+        
+        long[] deviceLinks = deviceEdges.distinct();
+        long[] cardLinks = cardEdges.distinct();
+        long[] merchantLinks = merchantEdges.distinct();
+        int[] deviceFanOut = fanOut(deviceLinks, devices.size());
+        int[] cardFanOut = fanOut(cardLinks, cards.size());
+        int[] merchantFanOut = fanOut(merchantLinks, merchants.size());
+        
+        int[] parent = new int[cardBase + cards.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (long link : deviceLinks) {
+            union(parent, customerOf(link), deviceBase + entityOf(link));
+        }
+        for (long link : cardLinks) {
+            union(parent, customerOf(link), cardBase + entityOf(link));
+        }
+        
+        int[] clusterOf = new int[customerCount];
+        int[] clusterSize = new int[parent.length];
+        for (int c = 0; c < customerCount; c++) {
+            clusterOf[c] = find(parent, c);
+            clusterSize[clusterOf[c]]++;
+        }
+        
+        byte[] clusterFlags = new byte[parent.length];
+        List<FraudRingIndex.Hub> hubs = new ArrayList<>();
+        for (int d = 0; d < deviceFanOut.length; d++) {
+            if (deviceFanOut[d] >= thresholds.minDeviceCustomers()) {
+                clusterFlags[find(parent, deviceBase + d)] |= SHARED_DEVICE;
+                hubs.add(new FraudRingIndex.Hub("device", devices.name(d), deviceFanOut[d]));
+            }
+        }
+        for (int k = 0; k < cardFanOut.length; k++) {
+            if (cardFanOut[k] >= thresholds.minCardCustomers()) {
+                clusterFlags[find(parent, cardBase + k)] |= SHARED_CARD;
+                hubs.add(new FraudRingIndex.Hub("card", cards.name(k), cardFanOut[k]));
+            }
+        }
+        for (int c = 0; c < customerCount; c++) {
+            if (clusterSize[clusterOf[c]] >= thresholds.minClusterCustomers()) {
+                clusterFlags[clusterOf[c]] |= LARGE_CLUSTER;
+            }
+        }
+        
+        boolean[] burst = new boolean[merchants.size()];
+        long newSince = nowMillis - thresholds.newMerchantMillis();
+        for (int m = 0; m < burst.length; m++) {
+            if (merchantFirstSeen[m] >= newSince && merchantFanOut[m] >= thresholds.minMerchantCustomers()) {
+                burst[m] = true;
+                hubs.add(new FraudRingIndex.Hub("merchant", merchants.name(m), merchantFanOut[m]));
+            }
+        }
+        
+        byte[] flags = new byte[customerCount];
+        for (int c = 0; c < customerCount; c++) {
+            flags[c] = clusterFlags[clusterOf[c]];
+        }
+        for (long link : merchantLinks) {
+            if (burst[entityOf(link)]) {
+                flags[customerOf(link)] |= NEW_MERCHANT_BURST;
+            }
+        }
+        
+        hubs.sort((a, b) -> Integer.compare(b.customers(), a.customers()));
+        int[] customerClusterSize = new int[customerCount];
+        for (int c = 0; c < customerCount; c++) {
+            customerClusterSize[c] = clusterSize[clusterOf[c]];
+        }
+        return new FraudRingIndex(customers, clusterOf, customerClusterSize, flags, hubs, transactions,
+            devices.size(), cards.size(), merchants.size(),
+            deviceLinks.length + cardLinks.length + merchantLinks.length);
+    }
+    
+    private static long edge(int customer, int entity) {
+        return (long) customer << 32 | entity;
+    }
+    
+    private static int customerOf(long edge) {
+        return (int) (edge >>> 32);
+    }
+    
+    private static int entityOf(long edge) {
+        return (int) edge;
+    }
+    
+    /**
+     * Distinct customers per entity, from distinct customer-entity links
+     */
+    private static int[] fanOut(long[] links, int entities) {
+        int[] counts = new int[entities];
+        for (long link : links) {
+            counts[entityOf(link)]++;
+        }
+        return counts;
+    }
+    
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            // Path halving keeps the trees shallow without recursion
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+    
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.aegis.risk.graph;
+
+import com.aegis.metrics.MetricsService;
+import com.aegis.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds customers tied together through shared devices and cards, and merchants that
+ * charge many customers soon after first appearing. A background job rebuilds the
+ * cross-customer graph from recent transactions in one keyset-paged pass and swaps in the new
+ * index atomically; triage only does the O(1) {@link #link(String)} lookup.
+ */
+@Component
+public class FraudRingDetector {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FraudRingDetector.class);
+    private static final int SUMMARY_HUBS = 20;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Value("${aegis.risk.rings.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${aegis.risk.rings.lookback-days:30}")
+    private int lookbackDays;
+    
+    @Value("${aegis.risk.rings.rebuild-interval:600000}")
+    private long rebuildIntervalMs;
+    
+    @Value("${aegis.risk.rings.page-size:5000}")
+    private int pageSize;
+    
+    @Value("${aegis.risk.rings.min-device-customers:3}")
+    private int minDeviceCustomers;
+    
+    @Value("${aegis.risk.rings.min-card-customers:2}")
+    private int minCardCustomers;
+    
+    @Value("${aegis.risk.rings.min-cluster-customers:10}")
+    private int minClusterCustomers;
+    
+    @Value("${aegis.risk.rings.new-merchant.min-customers:100}")
+    private int minMerchantCustomers;
+    
+    @Value("${aegis.risk.rings.new-merchant.window-days:7}")
+    private int newMerchantDays;
+    
+    private volatile FraudRingIndex index = FraudRingIndex.EMPTY;
+    private ScheduledExecutorService builder;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        builder = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("fraud-ring-builder").daemon().factory());
+        builder.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    void stop() {
+        if (builder != null) {
+            builder.shutdownNow();
+        }
+    }
+    
+    /**
+     * The customer's link to a suspicious cluster as of the last build, if any
+     */
+    public Optional<FraudRingLink> link(String customerId) {
+        return index.link(customerId);
+    }
+    
+    /**
+     * Size of the last build and its highest fan-out devices, cards and new merchants
+     */
+    public Map<String, Object> summary() {
+        return index.summary(SUMMARY_HUBS);
+    }
+    
+    /**
+     * Rebuilds the graph now; the previous index stays in use until the build completes
+     *
+     * @return the number of customers flagged by the new build
+     */
+    public synchronized int rebuild() {
+        long startTime = System.currentTimeMillis();
+        EntityGraphBuilder graph = new EntityGraphBuilder();
+        OffsetDateTime from = OffsetDateTime.now().minusDays(lookbackDays);
+        
+        // Keyset cursor; the empty ID puts the first page at the first row at or after from
+        OffsetDateTime lastTs = from;
+        String lastId = "";
+        PageRequest limit = PageRequest.of(0, pageSize);
+        while (true) {
+            List<Object[]> page = transactionRepository.findEntityLinksAfter(lastTs, lastId, limit);
+            for (Object[] row : page) {
+                graph.add((String) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    ((OffsetDateTime) row[4]).toInstant().toEpochMilli());
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            Object[] last = page.get(page.size() - 1);
+            lastTs = (OffsetDateTime) last[4];
+            lastId = (String) last[5];
+        }
+        
+        FraudRingIndex built = graph.build(new EntityGraphBuilder.Thresholds(minDeviceCustomers, minCardCustomers,
+            minClusterCustomers, minMerchantCustomers, Duration.ofDays(newMerchantDays).toMillis()),
+            System.currentTimeMillis());
+        index = built;
+        
+        long duration = System.currentTimeMillis() - startTime;
+        metricsService.recordFraudRingBuild(duration, built.flaggedCustomers(), true);
+        logger.info("Fraud ring graph rebuilt from the last {} days in {}ms: {}",
+                   lookbackDays, duration, built.summary(0));
+        return built.flaggedCustomers();
+    }
+    
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            metricsService.recordFraudRingBuild(0, 0, false);
+            logger.error("Fraud ring graph rebuild failed, keeping the previous graph", e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.aegis.risk.graph;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable result of one graph build. A customer lookup is one hash probe for the
+ * customer's int id and then array reads.
+ */
+final class FraudRingIndex {
+    
+    record Hub(String type, String id, int customers) {}
+    
+    static final FraudRingIndex EMPTY = new FraudRingIndex(new IdMap(), new int[0], new int[0], new byte[0],
+        List.of(), 0, 0, 0, 0, 0);
+    
+    private final IdMap customers;
+    private final int[] clusterOf;
+    private final int[] clusterSize;
+    private final byte[] flags;
+    private final List<Hub> hubs;
+    private final long transactions;
+    private final int devices;
+    private final int cards;
+    private final int merchants;
+    private final int links;
+    private final int flaggedCustomers;
+    private final Instant builtAt = Instant.now();
+    
+    FraudRingIndex(IdMap customers, int[] clusterOf, int[] clusterSize, byte[] flags, List<Hub> hubs,
+                   long transactions, int devices, int cards, int merchants, int links) {
+        this.customers = customers;
+        this.clusterOf = clusterOf;
+        this.clusterSize = clusterSize;
+        this.flags = flags;
+        this.hubs = List.copyOf(hubs);
+        this.transactions = transactions;
+        this.devices = devices;
+        this.cards = cards;
+        this.merchants = merchants;
+        this.links = links;
+        int flagged = 0;
+        for (byte flag : flags) {
+            if (flag != 0) {
+                flagged++;
+            }
+        }
+        this.flaggedCustomers = flagged;
+    }
+    
+    Optional<FraudRingLink> link(String customerId) {
+        int customer = customerId != null ? customers.find(customerId) : -1;
+        if (customer < 0 || flags[customer] == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new FraudRingLink(clusterOf[customer], clusterSize[customer], reasons(flags[customer])));
+    }
+    
+    Map<String, Object> summary(int maxHubs) {
+        List<Map<String, Object>> topHubs = new ArrayList<>();
+        for (Hub hub : hubs.subList(0, Math.min(maxHubs, hubs.size()))) {
+            topHubs.add(Map.of("type", hub.type(), "id", hub.id(), "customers", hub.customers()));
+        }
+        
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("builtAt", builtAt);
+        summary.put("transactions", transactions);
+        summary.put("customers", customers.size());
+        summary.put("devices", devices);
+        summary.put("cards", cards);
+        summary.put("merchants", merchants);
+        summary.put("links", links);
+        summary.put("flaggedCustomers", flaggedCustomers);
+        summary.put("highFanOutNodes", hubs.size());
+        summary.put("topHubs", topHubs);
+        return summary;
+    }
+    
+    int flaggedCustomers() {
+        return flaggedCustomers;
+    }
+    
+    private static List<String> reasons(int flags) {
+        List<String> reasons = new ArrayList<>(4);
+        if ((flags & EntityGraphBuilder.SHARED_DEVICE) != 0) {
+            reasons.add("shared_device");
+        }
+        if ((flags & EntityGraphBuilder.SHARED_CARD) != 0) {
+            reasons.add("shared_card");
+        }
+        if ((flags & EntityGraphBuilder.LARGE_CLUSTER) != 0) {
+            reasons.add("large_cluster");
+        }
+        if ((flags & EntityGraphBuilder.NEW_MERCHANT_BURST) != 0) {
+            reasons.add("new_merchant_burst");
+        }
+        return List.copyOf(reasons);
+    }
+}
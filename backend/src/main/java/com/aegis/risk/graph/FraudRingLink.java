@@ -0,0 +1,13 @@
+package com.aegis.risk.graph;
+
+import java.util.List;
+
+/**
+ * A customer's tie to a suspicious cluster of customers who share devices or cards
+ *
+ * @param clusterId        stable only within one build of the graph
+ * @param clusterCustomers customers in the cluster, including this one
+ * @param reasons          why the cluster or the customer was flagged, e.g. "shared_device"
+ */
+public record FraudRingLink(int clusterId, int clusterCustomers, List<String> reasons) {
+}
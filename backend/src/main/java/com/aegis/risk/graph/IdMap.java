@@ -0,0 +1,41 @@
+package com.aegis.risk.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense int ids to strings in order of first appearance
+ */
+final class IdMap {
+    
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    
+    int id(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+    
+    /**
+     * Id of a known name, or -1
+     */
+    int find(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+    
+    String name(int id) {
+        return names.get(id);
+    }
+    
+    int size() {
+        return names.size();
+    }
+}
@@ -0,0 +1,42 @@
+package com.aegis.risk.graph;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive longs that drops duplicates whenever it fills up, so it only
+ * grows once the distinct values outgrow it
+ */
+final class LongList {
+    
+    private long[] values = new long[1024];
+    private int size;
+    
+    void add(long value) {
+        if (size == values.length) {
+            size = sortDistinct(values, size);
+            if (size > values.length * 3 / 4) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+        }
+        values[size++] = value;
+    }
+    
+    /**
+     * The distinct values in ascending order
+     */
+    long[] distinct() {
+        size = sortDistinct(values, size);
+        return Arrays.copyOf(values, size);
+    }
+    
+    private static int sortDistinct(long[] values, int size) {
+        Arrays.sort(values, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || values[i] != values[distinct - 1]) {
+                values[distinct++] = values[i];
+            }
+        }
+        return distinct;
+    }
+}
@@ -0,0 +1,231 @@
+package com.aegis.risk.rules;
+
+import com.aegis.dto.trace.RiskAssessment;
+import com.aegis.entity.Transaction;
+import com.aegis.metrics.MetricsService;
+import com.aegis.repository.TransactionRepository;
+import com.aegis.risk.AmountStatistics;
+import com.aegis.risk.CustomerFeatureStore;
+import com.aegis.risk.DeviceTrustCache;
+import com.aegis.risk.DuplicateChargeDetector;
+import com.aegis.risk.GeoVelocityEngine;
+import com.aegis.risk.graph.FraudRingDetector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Scores risk from configurable rules. The rules file is compiled into an immutable
+ * {@link RulePlan} that is swapped in atomically, so a reload never blocks or disturbs
+ * evaluations in flight. The file is polled for changes; an invalid edit is logged and
+ * the previous plan stays in force.
+ */
+@Component
+public class RiskRuleEngine {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RiskRuleEngine.class);
+    private static final String CLASSPATH_RULES = "fixtures/risk_rules.json";
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, RuleStats> stats = new ConcurrentHashMap<>();
+    
+    @Autowired
+    private CustomerFeatureStore featureStore;
+    
+    @Autowired
+    private GeoVelocityEngine geoVelocityEngine;
+    
+    @Autowired
+    private DuplicateChargeDetector duplicateChargeDetector;
+    
+    @Autowired
+    private DeviceTrustCache deviceTrustCache;
+    
+    @Autowired
+    private AmountStatistics amountStatistics;
+    
+    @Autowired
+    private FraudRingDetector fraudRingDetector;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Value("${aegis.risk.rules.file:/app/fixtures/risk_rules.json}")
+    private String rulesFile;
+    
+    @Value("${aegis.risk.rules.reload-interval:5000}")
+    private long reloadIntervalMs;
+    
+    private volatile RulePlan plan;
+    private volatile long loadedModified = -1;
+    private ScheduledExecutorService reloader;
+    
+    @PostConstruct
+    void start() throws IOException {
+        plan = load();
+        
+        if (reloadIntervalMs > 0) {
+            // Polled even when the file is absent, so rules dropped in after startup are picked up
+            if (!new File(rulesFile).exists()) {
+                logger.info("Risk rules file {} not found, serving the bundled rules until it appears", rulesFile);
+            }
+            reloader = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("risk-rule-reloader").daemon().factory());
+            reloader.scheduleWithFixedDelay(this::reloadIfChanged, reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    @PreDestroy
+    void stop() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+    
+    /**
+     * Evaluates the current rules for a transaction. The alert type may be null.
+     */
+    public RiskAssessment evaluate(String customerId, String txnId, String alertType) {
+        return evaluate(customerId, txnId, alertType, () -> transactionRepository.findById(txnId));
+    }
+    
+    /**
+     * Evaluates the current rules for a transaction already in hand, without reading it back
+     */
+    public RiskAssessment evaluate(Transaction txn, String alertType) {
+        return evaluate(txn.getCustomerId(), txn.getId(), alertType, () -> Optional.of(txn));
+    }
+    
+    private RiskAssessment evaluate(String customerId, String txnId, String alertType,
+                                    Supplier<Optional<Transaction>> suspectTransaction) {
+        long start = System.nanoTime();
+        RuleInput input = new RuleInput(customerId, txnId, alertType,
+            featureStore.snapshot(customerId).orElse(null),
+            () -> geoVelocityEngine.check(customerId, txnId),
+            suspectTransaction,
+            () -> deviceTrustCache.profile(customerId),
+            () -> duplicateChargeDetector.pairOf(customerId, txnId),
+            (mcc, amount) -> amountStatistics.zScore(customerId, txnId, mcc, amount),
+            () -> fraudRingDetector.link(customerId));
+        
+        RulePlan.Evaluation evaluation = plan.evaluate(input);
+        metricsService.recordRiskRuleEvaluation(System.nanoTime() - start, evaluation.matchedRules());
+        // Plan outcomes are shared per rule, so the time of this evaluation is stamped here
+        return evaluation.assessment().analyzedAt(System.currentTimeMillis());
+    }
+    
+    /**
+     * Re-reads and recompiles the rules now
+     *
+     * @return the number of active rules
+     * @throws IOException if the rules cannot be read or are invalid; the previous rules stay active
+     */
+    public int reload() throws IOException {
+        RulePlan reloaded = load();
+        plan = reloaded;
+        metricsService.recordRiskRuleReload(true);
+        return reloaded.ruleCount();
+    }
+    
+    /**
+     * Per-rule hit counts and evaluation time for the active rules, in evaluation order
+     */
+    public List<Map<String, Object>> ruleStats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (RulePlan.CompiledRule rule : plan.rules()) {
+            RuleStats ruleStats = rule.stats();
+            long evaluations = ruleStats.evaluations();
+            List<Map<String, Object>> conditions = new ArrayList<>();
+            for (int i = 0; i < rule.conditions().length; i++) {
+                Map<String, Object> condition = new LinkedHashMap<>();
+                condition.put("condition", rule.conditions()[i].description());
+                condition.put("evaluations", rule.conditionStats()[i].evaluations());
+                condition.put("passed", rule.conditionStats()[i].hits());
+                conditions.add(condition);
+            }
+            
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", rule.id());
+            entry.put("priority", rule.priority());
+            entry.put("level", rule.level());
+            entry.put("reasons", rule.reasons());
+            entry.put("evaluations", evaluations);
+            entry.put("hits", ruleStats.hits());
+            entry.put("avgEvaluationMicros", evaluations == 0 ? 0.0 : ruleStats.nanos() / 1000.0 / evaluations);
+            entry.put("conditions", conditions);
+            result.add(entry);
+        }
+        return result;
+    }
+    
+    private void reloadIfChanged() {
+        long modified = new File(rulesFile).lastModified();
+        if (modified == loadedModified) {
+            return;
+        }
+        if (modified == 0) {
+            // Remember the removal so the file is reloaded when it comes back
+            loadedModified = 0;
+            logger.warn("Risk rules file {} was removed, keeping the current rules", rulesFile);
+            return;
+        }
+        try {
+            int ruleCount = reload();
+            logger.info("Reloaded {} risk rules from {}", ruleCount, rulesFile);
+        } catch (Exception e) {
+            // Do not retry the same broken file every interval
+            loadedModified = modified;
+            metricsService.recordRiskRuleReload(false);
+            logger.error("Failed to reload risk rules from {}, keeping the previous rules: {}", rulesFile, e.getMessage());
+        }
+    }
+    
+    private RulePlan load() throws IOException {
+        File file = new File(rulesFile);
+        RuleSetDefinition definition;
+        long modified = file.lastModified();
+        if (file.exists()) {
+            definition = objectMapper.readValue(file, RuleSetDefinition.class);
+        } else {
+            try (InputStream inputStream = new ClassPathResource(CLASSPATH_RULES).getInputStream()) {
+                definition = objectMapper.readValue(inputStream, RuleSetDefinition.class);
+            }
+        }
+        
+        RulePlan compiled;
+        try {
+            compiled = RulePlan.compile(definition, key -> stats.computeIfAbsent(key, k -> new RuleStats()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid risk rules: " + e.getMessage(), e);
+        }
+        loadedModified = modified;
+        
+        logger.info("Compiled {} risk rules from {}: {}", compiled.ruleCount(),
+                   file.exists() ? rulesFile : "classpath:" + CLASSPATH_RULES,
+                   compiled.rules().stream().map(RulePlan.CompiledRule::id).toList());
+        return compiled;
+    }
+}
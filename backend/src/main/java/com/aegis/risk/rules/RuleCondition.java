@@ -0,0 +1,175 @@
+package com.aegis.risk.rules;
+
+import com.aegis.risk.CustomerFeatureSnapshot;
+import com.aegis.risk.GeoVelocityCheck;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.function.DoublePredicate;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A compiled rule predicate. The cost class orders evaluation: predicates answered from
+ * the request alone come first, then in-memory features, then the geo-velocity ring, and
+ * last those that need the suspect transaction row.
+ */
+final class RuleCondition {
+    
+    static final int COST_REQUEST = 0;
+    static final int COST_FEATURES = 1;
+    static final int COST_GEO = 2;
+    static final int COST_TRANSACTION = 3;
+    
+    private final String key;
+    private final String description;
+    private final int cost;
+    private final Predicate<RuleInput> predicate;
+    
+    private RuleCondition(String key, String description, int cost, Predicate<RuleInput> predicate) {
+        this.key = key;
+        this.description = description;
+        this.cost = cost;
+        this.predicate = predicate;
+    }
+    
+    /**
+     * Stable identity across reloads, used to carry observed pass rates into the next plan.
+     * Built from the rule ID and the condition's definition, so adding, removing or reordering
+     * conditions does not hand one condition's stats to another.
+     */
+    String key() {
+        return key;
+    }
+    
+    String description() {
+        return description;
+    }
+    
+    int cost() {
+        return cost;
+    }
+    
+    boolean test(RuleInput input) {
+        return predicate.test(input);
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the condition is malformed
+     */
+    static RuleCondition compile(String ruleId, int index, RuleSetDefinition.Condition condition) {
+        if (condition.type() == null) {
+            throw new IllegalArgumentException("Rule " + ruleId + " condition " + index + " has no type");
+        }
+        String key = ruleId + "#" + condition.type() + "|" + condition.feature() + "|" + condition.op()
+            + "|" + condition.value() + "|" + condition.values();
+        String type = condition.type();
+        return switch (type) {
+            case "alert_type" -> {
+                Set<String> alertTypes = Set.copyOf(requireValues(ruleId, condition));
+                yield new RuleCondition(key, type + " in " + alertTypes, COST_REQUEST,
+                    input -> input.alertType() != null && alertTypes.contains(input.alertType()));
+            }
+            case "no_history" -> new RuleCondition(key, type, COST_REQUEST, input -> input.features() == null);
+            case "feature" -> {
+                ToDoubleFunction<CustomerFeatureSnapshot> feature = feature(ruleId, condition.feature());
+                DoublePredicate comparison = comparison(ruleId, condition);
+                yield new RuleCondition(key, condition.feature() + " " + condition.op() + " " + condition.value(),
+                    COST_FEATURES, input -> input.features() != null
+                        && comparison.test(feature.applyAsDouble(input.features())));
+            }
+            case "duplicate_charge" -> {
+                // The suspect transaction is one half of a pending/captured pair captured no more than this many days ago
+                Duration lookback = Duration.ofHours(Math.round((condition.value() != null ? condition.value() : 30) * 24));
+                yield new RuleCondition(key, type + " within " + lookback.toDays() + "d", COST_FEATURES,
+                    input -> input.duplicatePair()
+                        .map(pair -> !pair.capturedAt().isBefore(Instant.now().minus(lookback)))
+                        .orElse(false));
+            }
+            case "fraud_ring" -> {
+                // Any link to a suspicious cluster, or only links flagged for one of the listed reasons
+                Set<String> reasons = condition.values() != null ? Set.copyOf(condition.values()) : Set.of();
+                yield new RuleCondition(key, reasons.isEmpty() ? type : type + " " + reasons, COST_FEATURES,
+                    input -> input.fraudRing()
+                        .map(link -> reasons.isEmpty() || link.reasons().stream().anyMatch(reasons::contains))
+                        .orElse(false));
+            }
+            case "geo_velocity" -> new RuleCondition(key, type, COST_GEO,
+                input -> input.geoVelocity().map(GeoVelocityCheck::violation).orElse(false));
+            case "mcc_in" -> {
+                Set<String> mccs = Set.copyOf(requireValues(ruleId, condition));
+                yield new RuleCondition(key, type + " " + mccs, COST_TRANSACTION,
+                    input -> input.suspectTransaction().map(txn -> mccs.contains(txn.getMcc())).orElse(false));
+            }
+            case "new_device" -> {
+                // An untrusted device first used no more than this many hours before the suspect transaction
+                Duration window = Duration.ofMinutes(Math.round((condition.value() != null ? condition.value() : 0) * 60));
+                yield new RuleCondition(key, type + " within " + window.toHours() + "h", COST_TRANSACTION,
+                    input -> input.suspectTransaction()
+                        .filter(txn -> txn.getTs() != null)
+                        .map(txn -> input.deviceProfile().isNewDevice(txn.getDeviceId(), txn.getTs().toInstant(), window))
+                        .orElse(false));
+            }
+            case "new_mcc" -> new RuleCondition(key, type, COST_TRANSACTION,
+                input -> input.suspectTransaction()
+                    .filter(txn -> txn.getTs() != null)
+                    .map(txn -> input.deviceProfile().isNewMcc(txn.getMcc(), txn.getTs().toInstant()))
+                    .orElse(false));
+            case "amount_zscore" -> {
+                DoublePredicate comparison = comparison(ruleId, condition);
+                yield new RuleCondition(key, "amount_zscore " + condition.op() + " " + condition.value(),
+                    COST_TRANSACTION, input -> input.suspectTransaction()
+                        .filter(txn -> txn.getAmount() != null)
+                        .map(txn -> input.amountZScore(txn.getMcc(), txn.getAmount()))
+                        .map(zScore -> zScore.isPresent() && comparison.test(zScore.getAsDouble()))
+                        .orElse(false));
+            }
+            default -> throw new IllegalArgumentException("Rule " + ruleId + " has unknown condition type: " + type);
+        };
+    }
+    
+    private static List<String> requireValues(String ruleId, RuleSetDefinition.Condition condition) {
+        if (condition.values() == null || condition.values().isEmpty()) {
+            throw new IllegalArgumentException("Rule " + ruleId + " condition " + condition.type() + " needs values");
+        }
+        return condition.values();
+    }
+    
+    private static ToDoubleFunction<CustomerFeatureSnapshot> feature(String ruleId, String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Rule " + ruleId + " feature condition has no feature");
+        }
+        return switch (name) {
+            case "txn_count_24h" -> CustomerFeatureSnapshot::txnCount24h;
+            case "spend_24h" -> CustomerFeatureSnapshot::spend24h;
+            case "txn_count_7d" -> CustomerFeatureSnapshot::txnCount7d;
+            case "spend_7d" -> CustomerFeatureSnapshot::spend7d;
+            case "txn_count_30d" -> CustomerFeatureSnapshot::txnCount30d;
+            case "spend_30d" -> CustomerFeatureSnapshot::spend30d;
+            case "distinct_devices_7d" -> CustomerFeatureSnapshot::distinctDevices7d;
+            case "distinct_mccs_7d" -> CustomerFeatureSnapshot::distinctMccs7d;
+            case "distinct_cities_7d" -> CustomerFeatureSnapshot::distinctCities7d;
+            // Last day's spend as a multiple of the 30-day daily average
+            case "spend_24h_vs_daily_avg" -> f -> f.avgDailySpend30d() > 0
+                ? (double) f.spend24h() / f.avgDailySpend30d() : 0;
+            default -> throw new IllegalArgumentException("Rule " + ruleId + " has unknown feature: " + name);
+        };
+    }
+    
+    private static DoublePredicate comparison(String ruleId, RuleSetDefinition.Condition condition) {
+        if (condition.op() == null || condition.value() == null) {
+            throw new IllegalArgumentException("Rule " + ruleId + " condition " + condition.type() + " needs op and value");
+        }
+        double threshold = condition.value();
+        return switch (condition.op()) {
+            case ">" -> v -> v > threshold;
+            case ">=" -> v -> v >= threshold;
+            case "<" -> v -> v < threshold;
+            case "<=" -> v -> v <= threshold;
+            case "==" -> v -> v == threshold;
+            default -> throw new IllegalArgumentException("Rule " + ruleId + " has unknown operator: " + condition.op());
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.aegis.risk.rules;
+
+import com.aegis.entity.Transaction;
+import com.aegis.risk.CustomerDeviceProfile;
+import com.aegis.risk.CustomerFeatureSnapshot;
+import com.aegis.risk.DuplicateChargePair;
+import com.aegis.risk.GeoVelocityCheck;
+import com.aegis.risk.graph.FraudRingLink;
+
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * What the rules of one evaluation can look at. The customer's features are read up
+ * front; the geo-velocity check, the suspect transaction and the device history are only
+ * fetched if a rule gets as far as needing them, and then at most once.
+ */
+public final class RuleInput {
+    
+    private final String customerId;
+    private final String txnId;
+    private final String alertType;
+    private final CustomerFeatureSnapshot features;
+    private final Supplier<Optional<GeoVelocityCheck>> geoVelocity;
+    private final Supplier<Optional<Transaction>> suspectTransaction;
+    private final Supplier<CustomerDeviceProfile> deviceProfile;
+    private final Supplier<Optional<DuplicateChargePair>> duplicatePair;
+    private final BiFunction<String, Long, OptionalDouble> amountZScore;
+    private final Supplier<Optional<FraudRingLink>> fraudRing;
+    
+    private Optional<GeoVelocityCheck> geoVelocityResult;
+    private Optional<Transaction> suspectTransactionResult;
+    private CustomerDeviceProfile deviceProfileResult;
+    
+    public RuleInput(String customerId, String txnId, String alertType, CustomerFeatureSnapshot features,
+                     Supplier<Optional<GeoVelocityCheck>> geoVelocity,
+                     Supplier<Optional<Transaction>> suspectTransaction,
+                     Supplier<CustomerDeviceProfile> deviceProfile,
+                     Supplier<Optional<DuplicateChargePair>> duplicatePair,
+                     BiFunction<String, Long, OptionalDouble> amountZScore,
+                     Supplier<Optional<FraudRingLink>> fraudRing) {
+        this.customerId = customerId;
+        this.txnId = txnId;
+        this.alertType = alertType;
+        this.features = features;
+        this.geoVelocity = geoVelocity;
+        this.suspectTransaction = suspectTransaction;
+        this.deviceProfile = deviceProfile;
+        this.duplicatePair = duplicatePair;
+        this.amountZScore = amountZScore;
+        this.fraudRing = fraudRing;
+    }
+    
+    public String customerId() {
+        return customerId;
+    }
+    
+    public String txnId() {
+        return txnId;
+    }
+    
+    public String alertType() {
+        return alertType;
+    }
+    
+    /**
+     * Null when nothing recent is known about the customer
+     */
+    public CustomerFeatureSnapshot features() {
+        return features;
+    }
+    
+    public Optional<GeoVelocityCheck> geoVelocity() {
+        if (geoVelocityResult == null) {
+            geoVelocityResult = geoVelocity.get();
+        }
+        return geoVelocityResult;
+    }
+    
+    public Optional<Transaction> suspectTransaction() {
+        if (suspectTransactionResult == null) {
+            suspectTransactionResult = txnId != null ? suspectTransaction.get() : Optional.empty();
+        }
+        return suspectTransactionResult;
+    }
+    
+    /**
+     * The devices and MCCs the customer has used before
+     */
+    public CustomerDeviceProfile deviceProfile() {
+        if (deviceProfileResult == null) {
+            deviceProfileResult = deviceProfile.get();
+        }
+        return deviceProfileResult;
+    }
+    
+    /**
+     * The preauth/capture duplicate pair the suspect transaction is part of, if any
+     */
+    public Optional<DuplicateChargePair> duplicatePair() {
+        return txnId != null ? duplicatePair.get() : Optional.empty();
+    }
+    
+    /**
+     * Standard score of the suspect transaction's amount against the customer's other amounts in the MCC; empty without enough history
+     */
+    public OptionalDouble amountZScore(String mcc, long amount) {
+        return amountZScore.apply(mcc, amount);
+    }
+    
+    /**
+     * The customer's link to a suspicious cluster of customers, if any
+     */
+    public Optional<FraudRingLink> fraudRing() {
+        return fraudRing.get();
+    }
+}
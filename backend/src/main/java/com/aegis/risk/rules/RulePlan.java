@@ -0,0 +1,173 @@
+package com.aegis.risk.rules;
+
+import com.aegis.dto.trace.RiskAssessment;
+import com.aegis.dto.trace.RiskLevel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Immutable, compiled form of a rule set. Rules are grouped into priority tiers and
+ * tiers are tried from the highest priority down; evaluation stops after the first tier
+ * in which any rule matched. Within a rule, conditions run cheapest first and, at equal
+ * cost, least often passing first, so a miss is usually found before anything expensive
+ * (like loading the suspect transaction) is touched.
+ */
+final class RulePlan {
+    
+    private static final double UNKNOWN_PASS_RATE = 0.5;
+    
+    record CompiledRule(String id, int priority, RiskLevel level, double confidence, List<String> reasons,
+                        RuleCondition[] conditions, RuleStats stats, RuleStats[] conditionStats) {}
+    
+    /**
+     * Assessment produced by one evaluation, with the rules that contributed to it
+     */
+    record Evaluation(RiskAssessment assessment, List<String> matchedRules) {}
+    
+    private final CompiledRule[][] tiers;
+    private final RiskAssessment defaultOutcome;
+    private final int ruleCount;
+    
+    private RulePlan(CompiledRule[][] tiers, RiskAssessment defaultOutcome, int ruleCount) {
+        this.tiers = tiers;
+        this.defaultOutcome = defaultOutcome;
+        this.ruleCount = ruleCount;
+    }
+    
+    /**
+     * @param statsFor counters by rule ID or condition key, shared with earlier plans
+     * @throws IllegalArgumentException if the rule set is invalid
+     */
+    static RulePlan compile(RuleSetDefinition definition, Function<String, RuleStats> statsFor) {
+        if (definition.defaultOutcome() == null) {
+            throw new IllegalArgumentException("Rule set has no defaultOutcome");
+        }
+        RiskAssessment defaultOutcome = outcome("defaultOutcome", definition.defaultOutcome().level(),
+            definition.defaultOutcome().confidence(), definition.defaultOutcome().reasons());
+        
+        Map<Integer, List<CompiledRule>> byPriority = new TreeMap<>(Comparator.reverseOrder());
+        Set<String> ids = new HashSet<>();
+        int ruleCount = 0;
+        List<RuleSetDefinition.Rule> rules = definition.rules() != null ? definition.rules() : List.of();
+        for (RuleSetDefinition.Rule rule : rules) {
+            if (rule.id() == null || !ids.add(rule.id())) {
+                throw new IllegalArgumentException("Rule IDs must be present and unique: " + rule.id());
+            }
+            if (!rule.isEnabled()) {
+                continue;
+            }
+            if (rule.conditions() == null || rule.conditions().isEmpty()) {
+                throw new IllegalArgumentException("Rule " + rule.id() + " has no conditions");
+            }
+            RiskAssessment result = outcome(rule.id(), rule.level(), rule.confidence(), rule.reasons());
+            
+            List<RuleCondition> conditions = new ArrayList<>();
+            for (int i = 0; i < rule.conditions().size(); i++) {
+                conditions.add(RuleCondition.compile(rule.id(), i, rule.conditions().get(i)));
+            }
+            conditions.sort(Comparator.comparingInt(RuleCondition::cost)
+                .thenComparingDouble(condition -> statsFor.apply(condition.key()).hitRate(UNKNOWN_PASS_RATE)));
+            
+            RuleCondition[] ordered = conditions.toArray(RuleCondition[]::new);
+            RuleStats[] conditionStats = Arrays.stream(ordered)
+                .map(condition -> statsFor.apply(condition.key()))
+                .toArray(RuleStats[]::new);
+            byPriority.computeIfAbsent(rule.priority(), k -> new ArrayList<>()).add(new CompiledRule(
+                rule.id(), rule.priority(), result.riskScore(), result.confidence(), result.reasons(),
+                ordered, statsFor.apply(rule.id()), conditionStats));
+            ruleCount++;
+        }
+        
+        CompiledRule[][] tiers = byPriority.values().stream()
+            .map(tier -> tier.toArray(CompiledRule[]::new))
+            .toArray(CompiledRule[][]::new);
+        return new RulePlan(tiers, defaultOutcome, ruleCount);
+    }
+    
+    Evaluation evaluate(RuleInput input) {
+        for (CompiledRule[] tier : tiers) {
+            List<CompiledRule> matched = null;
+            for (CompiledRule rule : tier) {
+                if (matches(rule, input)) {
+                    if (matched == null) {
+                        matched = new ArrayList<>(2);
+                    }
+                    matched.add(rule);
+                }
+            }
+            if (matched != null) {
+                return combine(matched);
+            }
+        }
+        return new Evaluation(defaultOutcome, List.of());
+    }
+    
+    int ruleCount() {
+        return ruleCount;
+    }
+    
+    /**
+     * Rules in evaluation order, with their conditions in evaluation order
+     */
+    List<CompiledRule> rules() {
+        List<CompiledRule> rules = new ArrayList<>(ruleCount);
+        for (CompiledRule[] tier : tiers) {
+            rules.addAll(Arrays.asList(tier));
+        }
+        return rules;
+    }
+    
+    private static boolean matches(CompiledRule rule, RuleInput input) {
+        long start = System.nanoTime();
+        boolean hit = true;
+        RuleCondition[] conditions = rule.conditions();
+        for (int i = 0; i < conditions.length; i++) {
+            boolean passed = conditions[i].test(input);
+            rule.conditionStats()[i].record(passed);
+            if (!passed) {
+                hit = false;
+                break;
+            }
+        }
+        rule.stats().record(hit, System.nanoTime() - start);
+        return hit;
+    }
+    
+    /**
+     * Highest level among the matched rules wins; reasons are merged in rule order
+     */
+    private static Evaluation combine(List<CompiledRule> matched) {
+        RiskLevel level = RiskLevel.LOW;
+        double confidence = 0;
+        Set<String> reasons = new LinkedHashSet<>();
+        List<String> ids = new ArrayList<>(matched.size());
+        for (CompiledRule rule : matched) {
+            if (rule.level().compareTo(level) > 0) {
+                level = rule.level();
+            }
+            confidence = Math.max(confidence, rule.confidence());
+            reasons.addAll(rule.reasons());
+            ids.add(rule.id());
+        }
+        return new Evaluation(new RiskAssessment(level, List.copyOf(reasons), confidence, false), ids);
+    }
+    
+    private static RiskAssessment outcome(String owner, String level, double confidence, List<String> reasons) {
+        if (level == null) {
+            throw new IllegalArgumentException(owner + " has no level");
+        }
+        if (reasons == null || reasons.isEmpty()) {
+            throw new IllegalArgumentException(owner + " has no reasons");
+        }
+        return new RiskAssessment(RiskLevel.fromCode(level), reasons, confidence, false);
+    }
+}
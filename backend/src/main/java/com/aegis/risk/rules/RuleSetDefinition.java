@@ -0,0 +1,36 @@
+package com.aegis.risk.rules;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Risk rules as written in the rules file. Rules with a higher priority are decided
+ * first; the first priority tier with any matching rule produces the assessment, and
+ * {@code defaultOutcome} applies when no rule matches.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record RuleSetDefinition(Outcome defaultOutcome, List<Rule> rules) {
+    
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Outcome(String level, double confidence, List<String> reasons) {}
+    
+    /**
+     * A rule matches when all of its conditions hold
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Rule(String id, Boolean enabled, int priority, String level, double confidence,
+                       List<String> reasons, List<Condition> conditions) {
+        
+        public boolean isEnabled() {
+            return enabled == null || enabled;
+        }
+    }
+    
+    /**
+     * One predicate. {@code type} selects the check; {@code feature}, {@code op},
+     * {@code value} and {@code values} are its arguments where the type takes them.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Condition(String type, String feature, String op, Double value, List<String> values) {}
+}
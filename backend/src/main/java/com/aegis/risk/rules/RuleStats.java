@@ -0,0 +1,49 @@
+package com.aegis.risk.rules;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running counters for one rule or one condition. Kept by the engine across reloads,
+ * so pass rates observed under one plan can order the conditions of the next.
+ */
+final class RuleStats {
+    
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    
+    void record(boolean hit, long elapsedNanos) {
+        evaluations.increment();
+        if (hit) {
+            hits.increment();
+        }
+        nanos.add(elapsedNanos);
+    }
+    
+    void record(boolean hit) {
+        evaluations.increment();
+        if (hit) {
+            hits.increment();
+        }
+    }
+    
+    long evaluations() {
+        return evaluations.sum();
+    }
+    
+    long hits() {
+        return hits.sum();
+    }
+    
+    long nanos() {
+        return nanos.sum();
+    }
+    
+    /**
+     * Observed fraction of evaluations that passed, or the given prior before any were seen
+     */
+    double hitRate(double prior) {
+        long total = evaluations.sum();
+        return total == 0 ? prior : (double) hits.sum() / total;
+    }
+}
@@ -0,0 +1,76 @@
+package com.aegis.risk.scoring;
+
+import com.aegis.dto.trace.RiskAssessment;
+import com.aegis.risk.rules.RiskRuleEngine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * In-process stand-in for the remote risk model. Scores each batch with the risk rules
+ * after a simulated network latency, and times out a configurable fraction of calls so
+ * fallback handling gets exercised. Delays are scheduled, not slept, so waiting calls
+ * hold no threads.
+ */
+@Component
+@ConditionalOnProperty(name = "aegis.risk.scoring.backend", havingValue = "local", matchIfMissing = true)
+public class LocalRiskScoringBackend implements RiskScoringBackend {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LocalRiskScoringBackend.class);
+    
+    private final RiskRuleEngine ruleEngine;
+    private final long latencyMs;
+    private final double timeoutProbability;
+    private final long timeoutMs;
+    // Rule evaluation may load the suspect transaction, so it runs off the scheduler thread
+    private final ExecutorService scoringExecutor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("risk-model-", 0).factory());
+    
+    public LocalRiskScoringBackend(RiskRuleEngine ruleEngine,
+                                   @Value("${aegis.risk.scoring.local.latency:20}") long latencyMs,
+                                   @Value("${aegis.risk.scoring.local.timeout-probability:0.1}") double timeoutProbability,
+                                   @Value("${aegis.risk.scoring.local.timeout:1500}") long timeoutMs) {
+        this.ruleEngine = ruleEngine;
+        this.latencyMs = latencyMs;
+        this.timeoutProbability = timeoutProbability;
+        this.timeoutMs = timeoutMs;
+        
+        logger.info("Local risk scoring backend initialized: latency={}ms, timeoutProbability={}, timeout={}ms",
+                   latencyMs, timeoutProbability, timeoutMs);
+    }
+    
+    @Override
+    public CompletableFuture<List<RiskAssessment>> scoreBatch(List<RiskScoringRequest> requests) {
+        if (ThreadLocalRandom.current().nextDouble() < timeoutProbability) {
+            CompletableFuture<List<RiskAssessment>> timedOut = new CompletableFuture<>();
+            CompletableFuture.delayedExecutor(timeoutMs, TimeUnit.MILLISECONDS, scoringExecutor)
+                .execute(() -> timedOut.completeExceptionally(new TimeoutException("Risk service timeout")));
+            return timedOut;
+        }
+        
+        return CompletableFuture.supplyAsync(() -> {
+            List<RiskAssessment> results = new ArrayList<>(requests.size());
+            for (RiskScoringRequest request : requests) {
+                results.add(ruleEngine.evaluate(request.customerId(), request.txnId(), request.alertType()));
+            }
+            return results;
+        }, CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS, scoringExecutor));
+    }
+    
+    @PreDestroy
+    void stop() {
+        scoringExecutor.shutdownNow();
+    }
+}
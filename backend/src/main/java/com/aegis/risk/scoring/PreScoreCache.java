@@ -0,0 +1,105 @@
+package com.aegis.risk.scoring;
+
+import com.aegis.dto.trace.RiskAssessment;
+import com.aegis.dto.trace.RiskLevel;
+import com.aegis.entity.Transaction;
+import com.aegis.metrics.MetricsService;
+import com.aegis.risk.rules.RiskRuleEngine;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provisional risk scores computed when transactions are ingested, keyed by transaction ID.
+ * Each new transaction is run through the risk rules in the background, after the in-memory
+ * risk state has seen it, so an alert on it can be answered without scoring at request time.
+ */
+@Component
+public class PreScoreCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PreScoreCache.class);
+    
+    private final RiskRuleEngine ruleEngine;
+    private final MetricsService metricsService;
+    private final boolean enabled;
+    private final double minConfidence;
+    private final Cache<String, RiskAssessment> scores;
+    private final ExecutorService scoringExecutor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("pre-score-", 0).factory());
+    
+    public PreScoreCache(RiskRuleEngine ruleEngine, MetricsService metricsService,
+                         @Value("${aegis.risk.pre-score.enabled:true}") boolean enabled,
+                         @Value("${aegis.risk.pre-score.max-size:1000000}") long maxSize,
+                         @Value("${aegis.risk.pre-score.ttl-hours:72}") long ttlHours,
+                         @Value("${aegis.risk.pre-score.min-confidence:0.9}") double minConfidence) {
+        this.ruleEngine = ruleEngine;
+        this.metricsService = metricsService;
+        this.enabled = enabled;
+        this.minConfidence = minConfidence;
+        this.scores = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofHours(ttlHours))
+            .build();
+        
+        logger.info("Pre-score cache initialized: enabled={}, maxSize={}, ttl={}h, minConfidence={}",
+                   enabled, maxSize, ttlHours, minConfidence);
+    }
+    
+    @PreDestroy
+    void stop() {
+        scoringExecutor.shutdownNow();
+    }
+    
+    /**
+     * Scores newly ingested transactions in the background
+     */
+    public void preScore(List<Transaction> transactions) {
+        if (!enabled || transactions.isEmpty()) {
+            return;
+        }
+        List<Transaction> batch = List.copyOf(transactions);
+        scoringExecutor.execute(() -> {
+            long startTime = System.currentTimeMillis();
+            int scored = 0;
+            for (Transaction txn : batch) {
+                if (txn.getId() == null || txn.getCustomerId() == null) {
+                    continue;
+                }
+                try {
+                    scores.put(txn.getId(), ruleEngine.evaluate(txn, null));
+                    scored++;
+                } catch (Exception e) {
+                    logger.warn("Pre-scoring failed for txnId={}: {}", txn.getId(), e.getMessage());
+                }
+            }
+            logger.debug("Pre-scored {} transactions in {}ms", scored, System.currentTimeMillis() - startTime);
+        });
+    }
+    
+    /**
+     * The transaction's pre-score if it is clear enough to decide on: high or low risk with
+     * at least the configured confidence. Medium or less confident scores are ambiguous and
+     * need the full workflow.
+     */
+    public Optional<RiskAssessment> decisive(String txnId) {
+        RiskAssessment score = txnId != null ? scores.getIfPresent(txnId) : null;
+        if (score == null) {
+            metricsService.recordPreScoreLookup("miss");
+            return Optional.empty();
+        }
+        boolean decisive = !score.fallbackUsed() && score.riskScore() != RiskLevel.MEDIUM
+            && score.confidence() >= minConfidence;
+        metricsService.recordPreScoreLookup(decisive ? "decisive" : "ambiguous");
+        return decisive ? Optional.of(score) : Optional.empty();
+    }
+}
@@ -0,0 +1,19 @@
+package com.aegis.risk.scoring;
+
+import com.aegis.dto.trace.RiskAssessment;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The risk model behind {@link RiskScoringClient}. Receives whole micro-batches, so a
+ * remote implementation makes one call per batch rather than one per transaction.
+ */
+public interface RiskScoringBackend {
+    
+    /**
+     * Scores the requests in one call. The result holds one assessment per request, in
+     * request order. Must not block the caller; a failed call fails every request in it.
+     */
+    CompletableFuture<List<RiskAssessment>> scoreBatch(List<RiskScoringRequest> requests);
+}
@@ -0,0 +1,159 @@
+package com.aegis.risk.scoring;
+
+import com.aegis.dto.trace.RiskAssessment;
+import com.aegis.metrics.MetricsService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client for the risk scoring backend that collects concurrent requests into micro-batches.
+ * A single batcher thread sends a batch when it reaches the maximum size or when its oldest
+ * request has waited the maximum wait. At most {@code max-in-flight} batches are outstanding;
+ * while that limit is reached, requests keep queueing and go out in larger batches.
+ */
+@Component
+public class RiskScoringClient {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RiskScoringClient.class);
+    
+    private record PendingScore(RiskScoringRequest request, CompletableFuture<RiskAssessment> result) {}
+    
+    @Autowired
+    private RiskScoringBackend backend;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Value("${aegis.risk.scoring.batch.max-size:32}")
+    private int maxBatchSize;
+    
+    @Value("${aegis.risk.scoring.batch.max-wait:5}")
+    private long maxWaitMs;
+    
+    @Value("${aegis.risk.scoring.max-in-flight:4}")
+    private int maxInFlight;
+    
+    @Value("${aegis.risk.scoring.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    private BlockingQueue<PendingScore> queue;
+    private Semaphore inFlight;
+    private Thread batcherThread;
+    private volatile boolean running;
+    
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        inFlight = new Semaphore(maxInFlight);
+        metricsService.registerRiskScoringGauges(queue, inFlight, maxInFlight);
+        running = true;
+        batcherThread = Thread.ofPlatform().name("risk-scoring-batcher").daemon().start(this::runBatcher);
+        
+        logger.info("Risk scoring client started: maxBatchSize={}, maxWait={}ms, maxInFlight={}, queueCapacity={}",
+                   maxBatchSize, maxWaitMs, maxInFlight, queueCapacity);
+    }
+    
+    @PreDestroy
+    void stop() {
+        running = false;
+        batcherThread.interrupt();
+        PendingScore pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new RejectedExecutionException("Risk scoring client stopped"));
+        }
+    }
+    
+    /**
+     * Queues a request for the next batch. The future fails if the queue is full or the
+     * backend call fails; cancelling it drops the request if its batch has not gone out yet.
+     */
+    public CompletableFuture<RiskAssessment> score(RiskScoringRequest request) {
+        PendingScore pending = new PendingScore(request, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            metricsService.recordRiskScoringRejected();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Risk scoring queue full"));
+        }
+        return pending.result();
+    }
+    
+    private void runBatcher() {
+        List<PendingScore> batch = new ArrayList<>(maxBatchSize);
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingScore next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                
+                inFlight.acquire();
+                // Requests queued while waiting for a permit ride along up to the size limit
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                // Callers that gave up (timeout, cancelled step) are not sent
+                batch.removeIf(pending -> pending.result().isDone());
+                if (batch.isEmpty()) {
+                    inFlight.release();
+                } else {
+                    send(List.copyOf(batch));
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.result().completeExceptionally(
+                    new RejectedExecutionException("Risk scoring client stopped")));
+                return;
+            }
+        }
+    }
+    
+    private void send(List<PendingScore> batch) {
+        long startTime = System.currentTimeMillis();
+        List<RiskScoringRequest> requests = batch.stream().map(PendingScore::request).toList();
+        
+        CompletableFuture<List<RiskAssessment>> call;
+        try {
+            call = backend.scoreBatch(requests);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        
+        call.whenComplete((results, error) -> {
+            inFlight.release();
+            long duration = System.currentTimeMillis() - startTime;
+            metricsService.recordRiskScoringBatch(batch.size(), duration, error == null);
+            
+            Throwable failure = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (failure == null && results.size() != batch.size()) {
+                failure = new IllegalStateException("Risk backend returned " + results.size()
+                    + " scores for " + batch.size() + " requests");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                if (failure != null) {
+                    batch.get(i).result().completeExceptionally(failure);
+                } else {
+                    batch.get(i).result().complete(results.get(i));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,7 @@
+package com.aegis.risk.scoring;
+
+/**
+ * One transaction to score. The alert type may be null.
+ */
+public record RiskScoringRequest(String customerId, String txnId, String alertType) {
+}
@@ -0,0 +1,189 @@
+package com.aegis.service;
+
+import com.aegis.dto.trace.StepResult;
+import com.aegis.metrics.MetricsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists finished triage traces to agent_traces off the request path. Traces are
+ * queued in memory and a single background writer flushes them as multi-row inserts,
+ * either when a batch fills up or when the flush interval elapses.
+ */
+@Service
+public class AgentTraceWriter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AgentTraceWriter.class);
+    
+    private record PendingTrace(String requestId, String customerId, String workflow,
+                                Map<String, StepResult> traceData, OffsetDateTime createdAt) {}
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MetricsService metricsService;
+    
+    @Value("${aegis.traces.persistence.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${aegis.traces.persistence.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    @Value("${aegis.traces.persistence.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${aegis.traces.persistence.flush-interval:500}")
+    private long flushIntervalMs;
+    
+    @Value("${aegis.traces.persistence.queue-full-policy:drop}")
+    private String queueFullPolicy;
+    
+    @Value("${aegis.traces.persistence.block-timeout:50}")
+    private long blockTimeoutMs;
+    
+    private BlockingQueue<PendingTrace> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+    
+    @PostConstruct
+    void start() {
+        if (!"drop".equals(queueFullPolicy) && !"block".equals(queueFullPolicy)) {
+            throw new IllegalArgumentException("Unknown aegis.traces.persistence.queue-full-policy: " + queueFullPolicy);
+        }
+        if (!enabled) {
+            logger.info("Agent trace persistence disabled");
+            return;
+        }
+        
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        metricsService.registerTracePersistenceGauge(queue);
+        running = true;
+        writerThread = Thread.ofPlatform().name("agent-trace-writer").daemon().start(this::runWriter);
+        
+        logger.info("Agent trace writer started: queueCapacity={}, batchSize={}, flushInterval={}ms, queueFullPolicy={}",
+                   queueCapacity, batchSize, flushIntervalMs, queueFullPolicy);
+    }
+    
+    /**
+     * Queues a finished trace for persistence. Never throws; with the block policy the
+     * caller waits at most the block timeout before the trace is dropped.
+     */
+    public void submit(String requestId, String customerId, String workflow, Map<String, StepResult> traceData) {
+        if (!running) {
+            return;
+        }
+        
+        PendingTrace trace = new PendingTrace(requestId, customerId, workflow, traceData, OffsetDateTime.now());
+        boolean queued;
+        if ("block".equals(queueFullPolicy)) {
+            try {
+                queued = queue.offer(trace, blockTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+        } else {
+            queued = queue.offer(trace);
+        }
+        
+        if (!queued) {
+            logger.debug("Trace queue full, dropping trace for requestId={}", requestId);
+            metricsService.recordTracesDropped("queue_full", 1);
+        }
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        // The writer drains whatever is still queued before it exits
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+    
+    private void runWriter() {
+        List<PendingTrace> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTrace first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                
+                // Wait up to one flush interval for the batch to fill
+                long flushAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long waitNanos = flushAt - System.nanoTime();
+                    PendingTrace next = waitNanos > 0 ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Failed to persist {} agent traces: {}", batch.size(), e.getMessage());
+                metricsService.recordTracesDropped("write_failed", batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void write(List<PendingTrace> batch) {
+        long startTime = System.currentTimeMillis();
+        StringBuilder sql = new StringBuilder(
+            "INSERT INTO agent_traces (request_id, customer_id, trace_data, created_at) VALUES ");
+        List<Object> args = new ArrayList<>(batch.size() * 4);
+        
+        for (PendingTrace trace : batch) {
+            String traceJson;
+            try {
+                traceJson = objectMapper.writeValueAsString(Map.of(
+                    "workflow", trace.workflow(),
+                    "steps", trace.traceData()));
+            } catch (Exception e) {
+                logger.warn("Could not serialize trace for requestId={}: {}", trace.requestId(), e.getMessage());
+                metricsService.recordTracesDropped("serialization_failed", 1);
+                continue;
+            }
+            
+            sql.append(args.isEmpty() ? "" : ", ").append("(?, ?, ?::jsonb, ?)");
+            args.add(trace.requestId());
+            args.add(trace.customerId());
+            args.add(traceJson);
+            args.add(trace.createdAt());
+        }
+        
+        if (args.isEmpty()) {
+            return;
+        }
+        int rows = jdbcTemplate.update(sql.toString(), args.toArray());
+        metricsService.recordTracesPersisted(rows, System.currentTimeMillis() - startTime);
+    }
+}
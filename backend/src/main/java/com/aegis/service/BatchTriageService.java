@@ -0,0 +1,121 @@
+package com.aegis.service;
+
+import com.aegis.agent.AgentOrchestrator;
+import com.aegis.agent.CustomerLookups;
+import com.aegis.dto.BatchTriageResult;
+import com.aegis.dto.TriageRequest;
+import com.aegis.dto.TriageResponse;
+import com.aegis.metrics.InstrumentedExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Service
+public class BatchTriageService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BatchTriageService.class);
+    
+    @Autowired
+    private AgentOrchestrator agentOrchestrator;
+    
+    @Autowired
+    private PiiRedactionService piiRedactionService;
+    
+    @Autowired
+    @Qualifier("triageBatchExecutor")
+    private InstrumentedExecutorService batchExecutor;
+    
+    @Value("${aegis.triage.batch.parallelism:16}")
+    private int parallelism;
+    
+    @Value("${aegis.triage.batch.max-items:5000}")
+    private int maxItems;
+    
+    public int getMaxItems() {
+        return maxItems;
+    }
+    
+    /**
+     * Runs every request in the batch and hands each result to onResult as soon as its
+     * workflow finishes, possibly from several threads at once. Requests are grouped by
+     * customer so profile and transaction lookups are fetched once per customer, and at
+     * most the configured number of workflows run at a time. The returned future
+     * completes when every item has been reported, or exceptionally as soon as onResult
+     * throws (e.g. the client went away), after which no further items are started.
+     */
+    public CompletableFuture<Void> executeBatch(List<TriageRequest> requests, Consumer<BatchTriageResult> onResult) {
+        // Keep each customer's items adjacent so its shared lookups are reused while warm
+        Map<String, List<Integer>> itemsByCustomer = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            itemsByCustomer.computeIfAbsent(requests.get(i).getCustomerId(), k -> new ArrayList<>()).add(i);
+        }
+        
+        logger.info("Starting triage batch: items={}, customers={}, parallelism={}",
+                   requests.size(), itemsByCustomer.size(), parallelism);
+        
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (requests.isEmpty()) {
+            done.complete(null);
+            return done;
+        }
+        
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicInteger remaining = new AtomicInteger(requests.size());
+        long startTime = System.currentTimeMillis();
+        
+        batchExecutor.execute(() -> {
+            try {
+                for (Map.Entry<String, List<Integer>> customerItems : itemsByCustomer.entrySet()) {
+                    CustomerLookups lookups = agentOrchestrator.sharedLookups(customerItems.getKey());
+                    for (int index : customerItems.getValue()) {
+                        permits.acquire();
+                        if (done.isDone()) {
+                            return;
+                        }
+                        batchExecutor.execute(() -> {
+                            try {
+                                onResult.accept(runItem(index, requests.get(index), lookups));
+                                if (remaining.decrementAndGet() == 0) {
+                                    logger.info("Triage batch completed: items={}, duration={}ms",
+                                               requests.size(), System.currentTimeMillis() - startTime);
+                                    done.complete(null);
+                                }
+                            } catch (Throwable e) {
+                                done.completeExceptionally(e);
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                done.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        });
+        
+        return done;
+    }
+    
+    private BatchTriageResult runItem(int index, TriageRequest request, CustomerLookups lookups) {
+        try {
+            TriageResponse response = agentOrchestrator.executeTriage(request, lookups);
+            return BatchTriageResult.ok(index, response);
+        } catch (Exception e) {
+            logger.error("Batch triage item {} failed for customerId={}",
+                        index, piiRedactionService.maskCustomerId(request.getCustomerId()), e);
+            return BatchTriageResult.error(index, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.aegis.service;
+
+import com.aegis.entity.Chargeback;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Aggregate chargeback history of one customer
+ *
+ * @param totalAmount      disputed amount in the smallest currency unit, summed regardless of sign
+ * @param lastReasonCode   reason code of the most recent chargeback, null when there are none
+ */
+public record ChargebackHistory(int count, long totalAmount, int open, int resolved,
+                                String lastReasonCode, OffsetDateTime lastCreatedAt) {
+    
+    public static final ChargebackHistory NONE = new ChargebackHistory(0, 0, 0, 0, null, null);
+    
+    public static ChargebackHistory of(List<Chargeback> chargebacks) {
+        long totalAmount = 0;
+        int open = 0;
+        Chargeback latest = null;
+        for (Chargeback chargeback : chargebacks) {
+            totalAmount += chargeback.getAmount() != null ? Math.abs(chargeback.getAmount()) : 0;
+            if (chargeback.getResolvedAt() == null) {
+                open++;
+            }
+            if (latest == null || (chargeback.getCreatedAt() != null
+                    && (latest.getCreatedAt() == null || chargeback.getCreatedAt().isAfter(latest.getCreatedAt())))) {
+                latest = chargeback;
+            }
+        }
+        if (latest == null) {
+            return NONE;
+        }
+        return new ChargebackHistory(chargebacks.size(), totalAmount, open, chargebacks.size() - open,
+            latest.getReasonCode(), latest.getCreatedAt());
+    }
+    
+    public boolean hasChargebacks() {
+        return count > 0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.aegis.service;
+
+import com.aegis.entity.Chargeback;
+import com.aegis.repository.ChargebackRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Per-customer chargeback aggregates, computed from one lookup on the customer index and
+ * kept in a bounded cache. Chargebacks recorded through this service refresh the
+ * customer's entry; the TTL picks up rows written to the table directly.
+ */
+@Service
+public class ChargebackService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChargebackService.class);
+    
+    private final ChargebackRepository chargebackRepository;
+    private final Cache<String, ChargebackHistory> histories;
+    
+    public ChargebackService(ChargebackRepository chargebackRepository,
+                             @Value("${aegis.chargebacks.cache.max-customers:100000}") long maxCustomers,
+                             @Value("${aegis.chargebacks.cache.ttl:600}") long ttlSeconds) {
+        this.chargebackRepository = chargebackRepository;
+        this.histories = Caffeine.newBuilder()
+            .maximumSize(maxCustomers)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .build();
+        
+        logger.info("Chargeback service initialized: maxCustomers={}, ttl={}s", maxCustomers, ttlSeconds);
+    }
+    
+    /**
+     * The customer's chargeback aggregates, loaded on a cache miss
+     */
+    public ChargebackHistory history(String customerId) {
+        return histories.get(customerId, this::load);
+    }
+    
+    /**
+     * Saves a chargeback and refreshes the customer's aggregates
+     */
+    public Chargeback record(Chargeback chargeback) {
+        Chargeback saved = chargebackRepository.save(chargeback);
+        histories.put(saved.getCustomerId(), load(saved.getCustomerId()));
+        return saved;
+    }
+    
+    private ChargebackHistory load(String customerId) {
+        return ChargebackHistory.of(chargebackRepository.findByCustomerId(customerId));
+    }
+}
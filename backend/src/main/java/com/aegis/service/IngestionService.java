@@ -1,8 +1,11 @@
 package com.aegis.service;
 
 import com.aegis.dto.IngestResponse;
+import com.aegis.entity.Chargeback;
 import com.aegis.entity.Transaction;
+import com.aegis.repository.ChargebackRepository;
 import com.aegis.repository.TransactionRepository;
+import com.aegis.risk.scoring.PreScoreCache;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -13,6 +16,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -26,6 +31,21 @@ public class IngestionService {
     @Autowired
     private TransactionRepository transactionRepository;
     
+    @Autowired
+    private List<TransactionIngestListener> ingestListeners;
+    
+    @Autowired
+    private PreScoreCache preScoreCache;
+    
+    @Autowired
+    private TransactionBootstrap transactionBootstrap;
+    
+    @Autowired
+    private ChargebackRepository chargebackRepository;
+    
+    @Autowired
+    private ChargebackService chargebackService;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final Set<String> processedRequests = ConcurrentHashMap.newKeySet();
     
@@ -92,13 +112,16 @@ public class IngestionService {
         try {
             int totalCount = 0;
             
+            // Before transactions, so ingest-time pre-scoring sees the chargeback history
+            if ("all".equals(dataset) || "chargebacks".equals(dataset)) {
+                totalCount += saveChargebacks(loadFixtureChargebacks());
+            }
+            
             if ("all".equals(dataset) || "transactions".equals(dataset)) {
                 List<Transaction> transactions = loadFixtureTransactions("transactions");
                 totalCount += saveTransactions(transactions);
             }
             
-            // Add other fixture types as needed
-            
             return new IngestResponse(true, totalCount, requestId, 
                 String.format("Successfully loaded %d records from fixtures", totalCount));
             
@@ -161,6 +184,63 @@ public class IngestionService {
             .toList();
     }
     
+    /**
+     * Loads chargebacks from the fixture file
+     */
+    private List<Chargeback> loadFixtureChargebacks() throws IOException {
+        ClassPathResource resource = new ClassPathResource("fixtures/chargebacks.json");
+        List<Map<String, Object>> chargebackData = objectMapper.readValue(
+            resource.getInputStream(), new TypeReference<List<Map<String, Object>>>() {});
+        
+        return chargebackData.stream()
+            .map(this::mapToChargeback)
+            .toList();
+    }
+    
+    /**
+     * Maps chargeback data to Chargeback entity
+     */
+    private Chargeback mapToChargeback(Map<String, Object> data) {
+        Chargeback chargeback = new Chargeback(
+            (String) data.get("id"),
+            (String) data.get("customerId"),
+            (String) data.get("transactionId"),
+            ((Number) data.get("amount")).longValue(),
+            (String) data.get("reasonCode"),
+            (String) data.get("status"));
+        chargeback.setCurrency((String) data.getOrDefault("currency", "INR"));
+        
+        if (data.get("createdAt") != null) {
+            chargeback.setCreatedAt(java.time.OffsetDateTime.parse((String) data.get("createdAt")));
+        }
+        if (data.get("resolvedAt") != null) {
+            chargeback.setResolvedAt(java.time.OffsetDateTime.parse((String) data.get("resolvedAt")));
+        }
+        
+        return chargeback;
+    }
+    
+    /**
+     * Saves chargebacks through the chargeback service, so cached aggregates are refreshed
+     */
+    private int saveChargebacks(List<Chargeback> chargebacks) {
+        int saved = 0;
+        
+        for (Chargeback chargeback : chargebacks) {
+            try {
+                if (!chargebackRepository.existsById(chargeback.getId())) {
+                    chargebackService.record(chargeback);
+                    saved++;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to save chargeback {}: {}", chargeback.getId(), e.getMessage());
+            }
+        }
+        
+        logger.info("Saved {} new chargebacks", saved);
+        return saved;
+    }
+    
     /**
      * Maps transaction data to Transaction entity
      */
@@ -210,21 +290,45 @@ public class IngestionService {
      * Saves transactions to database with deduplication
      */
     private int saveTransactions(List<Transaction> transactions) {
-        int savedCount = 0;
+        List<Transaction> saved = new ArrayList<>();
         
         for (Transaction transaction : transactions) {
             try {
                 // Check if transaction already exists (deduplication)
                 if (!transactionRepository.existsById(transaction.getId())) {
+                    // Claimed first, so a concurrent startup replay cannot deliver it as well
+                    transactionBootstrap.claimLive(transaction.getId());
                     transactionRepository.save(transaction);
-                    savedCount++;
+                    saved.add(transaction);
                 }
             } catch (Exception e) {
                 logger.warn("Failed to save transaction {}: {}", transaction.getId(), e.getMessage());
             }
         }
         
-        logger.info("Saved {} new transactions", savedCount);
-        return savedCount;
+        logger.info("Saved {} new transactions", saved.size());
+        notifyIngestListeners(saved);
+        // After the listeners, so the scores see the new transactions in the risk state
+        preScoreCache.preScore(saved);
+        return saved.size();
+    }
+    
+    /**
+     * Feeds newly saved transactions to the in-memory risk state
+     */
+    private void notifyIngestListeners(List<Transaction> saved) {
+        if (saved.isEmpty()) {
+            return;
+        }
+        List<Transaction> ordered = new ArrayList<>(saved);
+        ordered.sort(Comparator.comparing(Transaction::getTs, Comparator.nullsFirst(Comparator.naturalOrder())));
+        
+        for (TransactionIngestListener listener : ingestListeners) {
+            try {
+                listener.onTransactionsIngested(ordered);
+            } catch (Exception e) {
+                logger.warn("Ingest listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
     }
 }
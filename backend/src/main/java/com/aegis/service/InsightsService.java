@@ -2,6 +2,8 @@ package com.aegis.service;
 
 import com.aegis.entity.Transaction;
 import com.aegis.repository.TransactionRepository;
+import com.aegis.risk.AmountProfile;
+import com.aegis.risk.AmountStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,10 +17,14 @@ import java.util.stream.Collectors;
 public class InsightsService {
     
     private static final Logger logger = LoggerFactory.getLogger(InsightsService.class);
+    private static final double UNUSUAL_AMOUNT_ZSCORE = 3.0;
     
     @Autowired
     private TransactionRepository transactionRepository;
     
+    @Autowired
+    private AmountStatistics amountStatistics;
+    
     /**
      * Generates customer insights summary
      */
@@ -55,7 +61,7 @@ public class InsightsService {
             List<Map<String, Object>> monthlyTrend = getMonthlyTrend(transactions);
             
             // Risk indicators
-            Map<String, Object> riskIndicators = getRiskIndicators(transactions);
+            Map<String, Object> riskIndicators = getRiskIndicators(customerId, transactions);
             
             insights.put("totalSpend", totalSpend);
             insights.put("currency", "INR");
@@ -157,20 +163,25 @@ public class InsightsService {
     }
     
     /**
-     * Gets risk indicators
+     * Gets risk indicators. Amounts are judged against the customer's running amount
+     * statistics; the fetched rows are only used when those are not available yet.
      */
-    private Map<String, Object> getRiskIndicators(List<Transaction> transactions) {
+    private Map<String, Object> getRiskIndicators(String customerId, List<Transaction> transactions) {
         Map<String, Object> indicators = new HashMap<>();
         
         // Check for unusual spending patterns
-        long avgAmount = transactions.stream()
-            .mapToLong(txn -> Math.abs(txn.getAmount()))
-            .sum() / transactions.size();
+        Transaction largest = transactions.stream()
+            .max(Comparator.comparingLong(txn -> Math.abs(txn.getAmount())))
+            .orElseThrow();
+        long maxAmount = Math.abs(largest.getAmount());
         
-        long maxAmount = transactions.stream()
-            .mapToLong(txn -> Math.abs(txn.getAmount()))
-            .max()
-            .orElse(0L);
+        Optional<AmountProfile> amounts = amountStatistics.profile(customerId, null);
+        long avgAmount = amounts.map(profile -> Math.round(profile.mean()))
+            .orElseGet(() -> transactions.stream().mapToLong(txn -> Math.abs(txn.getAmount())).sum() / transactions.size());
+        OptionalDouble maxZScore = amountStatistics.zScore(customerId, largest.getId(), largest.getMcc(), maxAmount);
+        boolean unusualAmount = maxZScore.isPresent()
+            ? maxZScore.getAsDouble() > UNUSUAL_AMOUNT_ZSCORE
+            : maxAmount > avgAmount * 5;
         
         // Check for multiple cities
         Set<String> cities = transactions.stream()
@@ -186,9 +197,14 @@ public class InsightsService {
         
         indicators.put("averageTransactionAmount", avgAmount);
         indicators.put("maxTransactionAmount", maxAmount);
+        maxZScore.ifPresent(zScore -> indicators.put("maxTransactionZScore", Math.round(zScore * 100) / 100.0));
+        amounts.ifPresent(profile -> {
+            indicators.put("medianTransactionAmount", Math.round(profile.p50()));
+            indicators.put("p95TransactionAmount", Math.round(profile.p95()));
+        });
         indicators.put("citiesVisited", cities.size());
         indicators.put("devicesUsed", devices.size());
-        indicators.put("hasUnusualPatterns", maxAmount > avgAmount * 5 || cities.size() > 3 || devices.size() > 2);
+        indicators.put("hasUnusualPatterns", unusualAmount || cities.size() > 3 || devices.size() > 2);
         
         return indicators;
     }
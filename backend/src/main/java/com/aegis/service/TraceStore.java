@@ -0,0 +1,46 @@
+package com.aegis.service;
+
+import com.aegis.dto.trace.StepResult;
+import com.aegis.dto.trace.TriageTrace;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recent triage traces by request ID. A response sent before its enrichment steps
+ * finished is stored as incomplete and replaced by the full trace once they do.
+ */
+@Service
+public class TraceStore {
+    
+    private final Cache<String, TriageTrace> traces;
+    
+    public TraceStore(
+            @Value("${aegis.traces.store.max-size:10000}") long maxSize,
+            @Value("${aegis.traces.store.ttl-minutes:30}") long ttlMinutes) {
+        this.traces = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+            .build();
+    }
+    
+    /**
+     * Records a trace snapshot. An incomplete snapshot never replaces a complete one,
+     * since enrichment can finish before the early response is recorded.
+     */
+    public void put(String requestId, Map<String, StepResult> traceData, boolean complete) {
+        TriageTrace trace = new TriageTrace(requestId, complete, traceData, OffsetDateTime.now());
+        traces.asMap().merge(requestId, trace, 
+            (existing, update) -> existing.complete() && !update.complete() ? existing : update);
+    }
+    
+    public Optional<TriageTrace> get(String requestId) {
+        return Optional.ofNullable(traces.getIfPresent(requestId));
+    }
+}
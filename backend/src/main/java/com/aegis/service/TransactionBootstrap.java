@@ -0,0 +1,107 @@
+package com.aegis.service;
+
+import com.aegis.entity.Transaction;
+import com.aegis.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replays recent transactions from the database to every ingest listener once the
+ * application has started, so in-memory risk state survives restarts. Ingest is already
+ * open while the replay runs; transactions that live ingest claims before saving them are
+ * left to it, so no listener sees a transaction twice.
+ */
+@Component
+public class TransactionBootstrap {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TransactionBootstrap.class);
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private List<TransactionIngestListener> ingestListeners;
+    
+    @Value("${aegis.ingest.bootstrap.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${aegis.ingest.bootstrap.lookback-days:30}")
+    private int lookbackDays;
+    
+    @Value("${aegis.ingest.bootstrap.page-size:5000}")
+    private int pageSize;
+    
+    // Transactions delivered by live ingest while the replay could still read them
+    private final Set<String> liveIngested = ConcurrentHashMap.newKeySet();
+    private volatile boolean replayDone;
+    
+    /**
+     * Marks a transaction as delivered by live ingest, so the replay skips it. Must be
+     * called before the row is saved, since the replay may read it from then on.
+     */
+    public void claimLive(String txnId) {
+        if (enabled && !replayDone) {
+            liveIngested.add(txnId);
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        if (!enabled || ingestListeners.isEmpty()) {
+            finishReplay();
+            return;
+        }
+        
+        long startTime = System.currentTimeMillis();
+        OffsetDateTime from = OffsetDateTime.now().minusDays(lookbackDays);
+        long loaded = 0;
+        
+        try {
+            // Keyset cursor; the empty ID puts the first page at the first row at or after from
+            OffsetDateTime lastTs = from;
+            String lastId = "";
+            PageRequest limit = PageRequest.of(0, pageSize);
+            while (true) {
+                List<Transaction> page = transactionRepository.findPageAfter(lastTs, lastId, limit);
+                List<Transaction> transactions = page.stream()
+                    .filter(txn -> !liveIngested.contains(txn.getId()))
+                    .toList();
+                for (TransactionIngestListener listener : ingestListeners) {
+                    listener.onTransactionsIngested(transactions);
+                }
+                loaded += transactions.size();
+                
+                if (page.size() < pageSize) {
+                    break;
+                }
+                Transaction last = page.get(page.size() - 1);
+                lastTs = last.getTs();
+                lastId = last.getId();
+            }
+        } catch (Exception e) {
+            logger.error("Transaction bootstrap failed after {} transactions, risk state is partial", loaded, e);
+            return;
+        } finally {
+            finishReplay();
+        }
+        
+        logger.info("Bootstrapped {} ingest listeners with {} transactions from the last {} days in {}ms",
+                   ingestListeners.size(), loaded, lookbackDays, System.currentTimeMillis() - startTime);
+    }
+    
+    private void finishReplay() {
+        replayDone = true;
+        liveIngested.clear();
+    }
+}
@@ -0,0 +1,20 @@
+package com.aegis.service;
+
+import com.aegis.entity.Transaction;
+
+import java.util.List;
+
+/**
+ * Receives transactions as they are ingested, so in-memory risk state can be updated
+ * incrementally instead of re-querying history at triage time. Also fed once at startup
+ * with recent history from the database; the startup replay skips transactions that live
+ * ingest delivered, so each transaction arrives once.
+ */
+public interface TransactionIngestListener {
+    
+    /**
+     * Called with newly saved transactions, roughly in timestamp order. Must be cheap;
+     * it runs on the ingest path.
+     */
+    void onTransactionsIngested(List<Transaction> transactions);
+}
@@ -0,0 +1,195 @@
+package com.aegis.service;
+
+import com.aegis.agent.workflow.StepListener;
+import com.aegis.agent.workflow.WorkflowPlan;
+import com.aegis.dto.TriageResponse;
+import com.aegis.dto.trace.StepResult;
+import com.aegis.metrics.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams a triage workflow to one SSE client as it runs. Step threads only enqueue
+ * into a bounded buffer and never block on the client; a single drain task at a time
+ * writes events on the emitter executor, so events arrive in order. When a slow client
+ * lets the buffer fill up, further step events are dropped and counted, but the decision
+ * is always delivered. The decision is sent as soon as it is known, after the events
+ * buffered before it; steps that are still running keep streaming, and a closing
+ * {@code done} event is sent once the workflow has completed.
+ */
+public class TriageEventStream implements StepListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TriageEventStream.class);
+    
+    private record Event(String name, Map<String, Object> data) {}
+    
+    private final String requestId;
+    private final SseEmitter emitter;
+    private final Executor emitterExecutor;
+    private final MetricsService metricsService;
+    private final BlockingQueue<Event> buffer;
+    
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean decisionSent = new AtomicBoolean();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile List<Event> decisionEvents;
+    private volatile boolean workflowCompleted;
+    private volatile boolean closed;
+    
+    public TriageEventStream(String requestId, SseEmitter emitter, Executor emitterExecutor,
+                             int bufferCapacity, MetricsService metricsService) {
+        this.requestId = requestId;
+        this.emitter = emitter;
+        this.emitterExecutor = emitterExecutor;
+        this.metricsService = metricsService;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        
+        emitter.onCompletion(() -> closed = true);
+        emitter.onTimeout(() -> closed = true);
+        emitter.onError(e -> closed = true);
+    }
+    
+    @Override
+    public void onPlanBuilt(WorkflowPlan plan) {
+        List<String> steps = new ArrayList<>();
+        for (WorkflowPlan.Step step : plan.getSteps()) {
+            steps.add(step.stepName());
+        }
+        publish("plan_built", Map.of(
+            "requestId", requestId,
+            "workflow", plan.getName(),
+            "steps", steps
+        ));
+    }
+    
+    @Override
+    public void onStepStarted(WorkflowPlan.Step step) {
+        publish("tool_started", Map.of(
+            "requestId", requestId,
+            "step", step.traceKey(),
+            "tool", step.stepName()
+        ));
+    }
+    
+    @Override
+    public void onStepCompleted(WorkflowPlan.Step step, StepResult result) {
+        publish("tool_update", Map.of(
+            "requestId", requestId,
+            "step", step.traceKey(),
+            "result", result
+        ));
+    }
+    
+    @Override
+    public void onWorkflowCompleted(Map<String, StepResult> traceData) {
+        workflowCompleted = true;
+        scheduleDrain();
+    }
+    
+    /**
+     * Queues the decision events. They are sent once everything buffered before them has
+     * been sent, without waiting for enrichment steps to finish.
+     */
+    public void complete(TriageResponse response) {
+        List<Event> events = new ArrayList<>();
+        if (response.isFallbackUsed()) {
+            events.add(new Event("fallback_triggered", Map.of(
+                "requestId", requestId,
+                "reason", "Service timeout or error"
+            )));
+        }
+        
+        Map<String, Object> decision = new HashMap<>();
+        decision.put("requestId", requestId);
+        decision.put("riskScore", response.getRiskScore());
+        decision.put("recommendedAction", response.getRecommendedAction());
+        decision.put("reasons", response.getReasons());
+        decision.put("requiresOTP", response.isRequiresOTP());
+        events.add(new Event("decision_finalized", decision));
+        
+        decisionEvents = events;
+        scheduleDrain();
+    }
+    
+    private void publish(String name, Map<String, Object> data) {
+        if (closed) {
+            return;
+        }
+        if (!buffer.offer(new Event(name, data))) {
+            logger.debug("SSE buffer full for requestId={}, dropping {}", requestId, name);
+            metricsService.recordSseEventDropped(name);
+            return;
+        }
+        scheduleDrain();
+    }
+    
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            emitterExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            logger.warn("SSE emitter executor saturated, closing stream for requestId={}", requestId);
+            close(e);
+        }
+    }
+    
+    private void drain() {
+        try {
+            Event event;
+            while (!closed && (event = buffer.poll()) != null) {
+                send(event);
+            }
+            List<Event> decided = decisionEvents;
+            if (!closed && decided != null && decisionSent.compareAndSet(false, true)) {
+                for (Event decisionEvent : decided) {
+                    send(decisionEvent);
+                }
+            }
+            if (!closed && decisionSent.get() && workflowCompleted && buffer.isEmpty() 
+                    && finished.compareAndSet(false, true)) {
+                send(new Event("done", Map.of("requestId", requestId)));
+                closed = true;
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter timed out
+            logger.debug("SSE client disconnected for requestId={}: {}", requestId, e.getMessage());
+            close(e);
+        } finally {
+            draining.set(false);
+        }
+        
+        // Events published while this drain was finishing would otherwise wait for the next publish
+        if (!closed && (!buffer.isEmpty() || (decisionEvents != null && !decisionSent.get())
+                || (decisionSent.get() && workflowCompleted && !finished.get()))) {
+            scheduleDrain();
+        }
+    }
+    
+    private void send(Event event) throws IOException {
+        emitter.send(SseEmitter.event()
+            .name(event.name())
+            .data(event.data()));
+    }
+    
+    private void close(Throwable cause) {
+        closed = true;
+        buffer.clear();
+        emitter.completeWithError(cause);
+    }
+}
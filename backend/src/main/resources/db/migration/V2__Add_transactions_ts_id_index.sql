@@ -0,0 +1,2 @@
+-- Keyset scans in (ts, id) order for the startup replay and the fraud ring rebuild
+CREATE INDEX idx_transactions_ts_id ON transactions (ts, id);
@@ -2,7 +2,7 @@
 
 /**
  * Evaluation Runner for Aegis Support
- * Runs the 12 golden test cases and generates evaluation report
+ * Runs the golden test cases and generates evaluation report
  */
 
 const axios = require('axios');
@@ -83,7 +83,8 @@ class EvaluationRunner {
                 recommendedAction: response.data.recommendedAction,
                 reasons: response.data.reasons,
                 requiresOTP: response.data.requiresOTP,
-                fallbackUsed: response.data.fallbackUsed
+                fallbackUsed: response.data.fallbackUsed,
+                workflowSteps: Object.keys(response.data.traceData || {})
             };
             
             // Check if fallback was used
@@ -144,6 +145,15 @@ class EvaluationRunner {
             }
         }
         
+        // Check that the expected workflow ran, by its step IDs in the trace
+        if (expected.workflowSteps) {
+            for (const step of expected.workflowSteps) {
+                if (!actual.workflowSteps.includes(step)) {
+                    return false;
+                }
+            }
+        }
+        
         return true;
     }
 